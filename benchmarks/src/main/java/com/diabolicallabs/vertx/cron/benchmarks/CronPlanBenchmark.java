@@ -0,0 +1,88 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.CronPlan;
+import com.diabolicallabs.vertx.cron.CronPlanCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.CronExpression;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the next fire time computation of a compiled {@link CronPlan} with Quartz's
+ * {@link CronExpression#getNextValidTimeAfter(Date)}, and the cost of obtaining either one for a
+ * schedule request. Run with {@code -prof gc} to see the allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CronPlanBenchmark {
+
+  private static final long START = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+  @Param({"*/1 * * * * ?", "0 */5 * * * ?", "15 10 0/3 ? * MON-FRI", "0 0 0 29 2 ?"})
+  public String expression;
+
+  @Param({"UTC", "America/New_York"})
+  public String timeZone;
+
+  private CronExpression quartz;
+  private CronPlan plan;
+  private long quartzAfter;
+  private long planAfter;
+
+  @Setup
+  public void setup() throws Exception {
+
+    quartz = new CronExpression(expression);
+    quartz.setTimeZone(TimeZone.getTimeZone(timeZone));
+    plan = CronPlan.compile(expression, timeZone);
+    quartzAfter = START;
+    planAfter = START;
+  }
+
+  @Benchmark
+  public long quartzNextValidTimeAfter() {
+
+    Date next = quartz.getNextValidTimeAfter(new Date(quartzAfter));
+    quartzAfter = next == null ? START : next.getTime();
+    return quartzAfter;
+  }
+
+  @Benchmark
+  public long planNextFireAfter() {
+
+    long next = plan.nextFireAfter(planAfter);
+    planAfter = next < 0 ? START : next;
+    return planAfter;
+  }
+
+  @Benchmark
+  public CronExpression quartzParse() throws Exception {
+
+    CronExpression parsed = new CronExpression(expression);
+    parsed.setTimeZone(TimeZone.getTimeZone(timeZone));
+    return parsed;
+  }
+
+  @Benchmark
+  public CronPlan cachedPlan() {
+    return CronPlanCache.shared().get(expression, timeZone);
+  }
+
+}
@@ -0,0 +1,139 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules many "send" events firing every second, each answered by a consumer, and waits for
+ * rounds of their fires. Reports the bytes allocated per fire by every thread, the scheduler, the
+ * event bus and the consumer alike, since the fires are made and answered on event loops that the
+ * per-operation figures of -prof gc do not see; the gc.count and gc.time of -prof gc still show the
+ * collections the fires cause.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, batchSize = 3)
+@Measurement(iterations = 1, batchSize = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeliveryBenchmark {
+
+  private static final String TARGET = "delivery.target";
+
+  @Param({"5000"})
+  public int schedules;
+
+  @Param({"rx", "wheel"})
+  public String engine;
+
+  private Vertx vertx;
+  private final BlockingQueue<Long> rounds = new LinkedBlockingQueue<>();
+
+  // Only touched by the event loop of the consumer
+  private long round = -1;
+  private int received;
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Allocation {
+
+    public long bytesPerFire;
+
+    private long start;
+    private int rounds;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytesPerFire = 0;
+      start = allocated();
+      rounds = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+
+    vertx = Vertx.vertx();
+    vertx.eventBus().consumer(TARGET, message -> {
+      message.reply(message.body());
+      arrived(System.currentTimeMillis() / 1000);
+    });
+
+    JsonObject config = new JsonObject().put("address_base", "delivery").put("engine", engine);
+    vertx.deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config))
+      .toCompletionStage().toCompletableFuture().get();
+
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < schedules; index++) {
+      batch.add(new JsonObject()
+        .put("cron_expression", "* * * * * ?")
+        .put("address", TARGET)
+        .put("message", new JsonObject().put("schedule", index))
+        .put("action", "send"));
+    }
+    vertx.eventBus().request("delivery.schedule.batch", batch).toCompletionStage().toCompletableFuture().get();
+  }
+
+  @Setup(Level.Iteration)
+  public void clear() {
+    rounds.clear();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().get();
+  }
+
+  @Benchmark
+  public long fireRound(Allocation allocation) throws InterruptedException {
+
+    long second = rounds.take();
+    allocation.bytesPerFire = (allocated() - allocation.start) / ((long) ++allocation.rounds * schedules);
+    return second;
+  }
+
+  /**
+   * @return the bytes allocated so far by the threads still alive
+   */
+  private static long allocated() {
+
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long total = 0;
+    for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      if (bytes > 0) total += bytes;
+    }
+    return total;
+  }
+
+  private void arrived(long second) {
+
+    if (second != round) {
+      round = second;
+      received = 0;
+    }
+    if (++received == schedules) rounds.add(second);
+  }
+
+}
@@ -0,0 +1,72 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.EncodedMessageCodec;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.impl.codecs.JsonObjectMessageCodec;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a fire's message to the wire as the event bus does when it goes to another node: with the
+ * JSON codec, which encodes it every time, and with {@link EncodedMessageCodec}, which copies the
+ * bytes encoded when the event was scheduled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodedMessageBenchmark {
+
+  @Param({"10", "1000"})
+  public int entries;
+
+  private final JsonObjectMessageCodec jsonCodec = new JsonObjectMessageCodec();
+  private final EncodedMessageCodec encodedCodec = new EncodedMessageCodec();
+
+  private JsonObject message;
+  private EncodedMessageCodec.Encoded encoded;
+
+  @Setup(Level.Trial)
+  public void setup() {
+
+    message = new JsonObject();
+    for (int index = 0; index < entries; index++) {
+      message.put("entry" + index, new JsonObject()
+        .put("name", "entry " + index)
+        .put("value", index)
+        .put("tags", new JsonArray().add("a").add("b")));
+    }
+    encoded = EncodedMessageCodec.encode(message);
+  }
+
+  @Benchmark
+  public Buffer jsonCodec() {
+    Buffer wire = Buffer.buffer();
+    jsonCodec.encodeToWire(wire, message);
+    return wire;
+  }
+
+  @Benchmark
+  public Buffer encodedCodec() {
+    Buffer wire = Buffer.buffer();
+    encodedCodec.encodeToWire(wire, encoded);
+    return wire;
+  }
+
+}
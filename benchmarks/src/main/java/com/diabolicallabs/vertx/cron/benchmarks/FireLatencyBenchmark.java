@@ -0,0 +1,90 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.CronClock;
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.reactivex.schedulers.TestScheduler;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules events firing every second on a simulated clock, and measures how long it takes from
+ * advancing the clock by a second until every fire of that second reached its consumer. With one
+ * event, that is the latency of a fire through the scheduler and the event bus; with many, it is how
+ * long a round of them takes to deliver. No time is spent waiting for real seconds to pass.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FireLatencyBenchmark {
+
+  private static final String TARGET = "latency.target";
+
+  @Param({"1", "1000"})
+  public int schedules;
+
+  @Param({"rx", "wheel"})
+  public String engine;
+
+  private Vertx vertx;
+  private TestScheduler scheduler;
+  private volatile CountDownLatch round = new CountDownLatch(0);
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+
+    vertx = Vertx.vertx();
+    vertx.eventBus().consumer(TARGET, message -> round.countDown());
+
+    // Starts on a second, so every second advanced holds one fire of each event
+    scheduler = new TestScheduler(System.currentTimeMillis() / 1000 * 1000, TimeUnit.MILLISECONDS);
+    CronEventSchedulerVertical vertical = new CronEventSchedulerVertical(scheduler, CronClock.of(scheduler));
+    JsonObject config = new JsonObject().put("address_base", "latency").put("engine", engine);
+    vertx.deployVerticle(vertical, new DeploymentOptions().setConfig(config))
+      .toCompletionStage().toCompletableFuture().get();
+
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < schedules; index++) {
+      batch.add(new JsonObject()
+        .put("cron_expression", "* * * * * ?")
+        .put("address", TARGET)
+        .put("action", "publish"));
+    }
+    vertx.eventBus().request("latency.schedule.batch", batch).toCompletionStage().toCompletableFuture().get();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().get();
+  }
+
+  @Benchmark
+  public void fireRound() throws InterruptedException {
+
+    CountDownLatch fires = new CountDownLatch(schedules);
+    round = fires;
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    if (!fires.await(10, TimeUnit.SECONDS)) throw new IllegalStateException(fires.getCount() + " fires did not arrive");
+  }
+
+}
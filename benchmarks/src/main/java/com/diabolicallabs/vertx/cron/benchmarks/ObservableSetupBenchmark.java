@@ -0,0 +1,51 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.CronObservable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.TestScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of setting up a {@link CronObservable} chain for a schedule: subscribing to it,
+ * which plans the first fire and arms its timer, then disposing of it. The timers are armed on a
+ * {@link TestScheduler} whose time never moves, so no fire happens and no real timer is created.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObservableSetupBenchmark {
+
+  @Param({"*/1 * * * * ?", "0 */5 * * * ?", "15 10 0/3 ? * MON-FRI"})
+  public String expression;
+
+  private final TestScheduler scheduler = new TestScheduler();
+
+  @Benchmark
+  public boolean cronspec() {
+    Disposable disposable = CronObservable.cronspec(scheduler, expression).subscribe();
+    disposable.dispose();
+    return disposable.isDisposed();
+  }
+
+  @Benchmark
+  public boolean precise() {
+    Disposable disposable = CronObservable.precise(scheduler, expression).subscribe();
+    disposable.dispose();
+    return disposable.isDisposed();
+  }
+
+}
@@ -0,0 +1,140 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules many events with the same cron expression and waits for rounds of their fires. Reports
+ * the most fires delivered within a single millisecond of any round, and the longest time from the
+ * planned instant until the last fire of a round was delivered. With spread_window_ms set, the same
+ * fires are spread over the window, so the peak drops and a round takes about as long as the window.
+ * With the "partitioned" dispatch, the fires are delivered from several event loops, so an unspread
+ * round is delivered sooner when there are cores to spare.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, batchSize = 2)
+@Measurement(iterations = 1, batchSize = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeakRateBenchmark {
+
+  private static final String TARGET = "peak.target";
+  private static final long PERIOD = 2000;
+
+  @Param({"10000"})
+  public int schedules;
+
+  @Param({"0", "1000"})
+  public long spreadWindowMs;
+
+  @Param({"event_loop", "partitioned"})
+  public String dispatch;
+
+  private Vertx vertx;
+  private final BlockingQueue<long[]> rounds = new LinkedBlockingQueue<>();
+
+  // Only touched by the event loop of the consumer
+  private long round = -1;
+  private int received;
+  private int[] perMilli = new int[(int) PERIOD];
+
+  // Maximums over the rounds of the one measurement iteration, as events counters add up iterations
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Round {
+
+    public long peakPerMilli;
+    public long spanMillis;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      peakPerMilli = 0;
+      spanMillis = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+
+    vertx = Vertx.vertx();
+    vertx.eventBus().consumer(TARGET, message -> arrived(System.currentTimeMillis()));
+
+    JsonObject config = new JsonObject().put("address_base", "peak").put("spread_window_ms", spreadWindowMs).put("dispatch", dispatch);
+    vertx.deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config))
+      .toCompletionStage().toCompletableFuture().get();
+
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < schedules; index++) {
+      batch.add(new JsonObject()
+        .put("cron_expression", "*/2 * * * * ?")
+        .put("address", TARGET)
+        .put("action", "publish"));
+    }
+    vertx.eventBus().request("peak.schedule.batch", batch).toCompletionStage().toCompletableFuture().get();
+  }
+
+  @Setup(Level.Iteration)
+  public void clear() {
+    rounds.clear();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().get();
+  }
+
+  @Benchmark
+  public void fireRound(Round result) throws InterruptedException {
+
+    long[] completed = rounds.take();
+    result.peakPerMilli = Math.max(result.peakPerMilli, completed[0]);
+    result.spanMillis = Math.max(result.spanMillis, completed[1]);
+  }
+
+  /**
+   * Rounds start on even seconds and, spread or not, are delivered well within the period, so the
+   * period an arrival falls in tells which round it belongs to.
+   */
+  private void arrived(long millis) {
+
+    long arrivalRound = millis / PERIOD;
+    if (arrivalRound != round) {
+      round = arrivalRound;
+      received = 0;
+      perMilli = new int[(int) PERIOD];
+    }
+
+    int offset = (int) (millis % PERIOD);
+    perMilli[offset]++;
+    if (++received < schedules) return;
+
+    long peak = 0;
+    for (int count : perMilli) {
+      peak = Math.max(peak, count);
+    }
+    rounds.add(new long[]{peak, offset});
+  }
+
+}
@@ -0,0 +1,149 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many schedule and cancel requests per second the scheduler handles through
+ * {@code <address_base>.schedule} and {@code <address_base>.cancel}, one request per event, with
+ * all the requests of an invocation in flight at once. The events fire once a year, so none fires
+ * while they are measured. Each invocation works on its own set of ids, scheduled or cancelled
+ * outside the measured time by batch requests.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistrationBenchmark {
+
+  private static final int REQUESTS = 1000;
+
+  @Param({"rx", "wheel"})
+  public String engine;
+
+  private Vertx vertx;
+  private int invocation;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+
+    vertx = Vertx.vertx();
+    JsonObject config = new JsonObject().put("address_base", "registration").put("engine", engine);
+    vertx.deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config))
+      .toCompletionStage().toCompletableFuture().get();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().get();
+  }
+
+  /**
+   * Events to schedule, cancelled once scheduled.
+   */
+  @State(Scope.Thread)
+  public static class Unscheduled {
+
+    private RegistrationBenchmark benchmark;
+    private JsonArray ids;
+    private JsonArray events;
+
+    @Setup(Level.Invocation)
+    public void prepare(RegistrationBenchmark benchmark) {
+      this.benchmark = benchmark;
+      ids = benchmark.nextIds();
+      events = benchmark.events(ids);
+    }
+
+    @TearDown(Level.Invocation)
+    public void cancel() throws Exception {
+      benchmark.vertx.eventBus().request("registration.cancel.batch", ids).toCompletionStage().toCompletableFuture().get();
+    }
+  }
+
+  /**
+   * Events already scheduled, to cancel.
+   */
+  @State(Scope.Thread)
+  public static class Scheduled {
+
+    private JsonArray ids;
+
+    @Setup(Level.Invocation)
+    public void schedule(RegistrationBenchmark benchmark) throws Exception {
+      ids = benchmark.nextIds();
+      benchmark.vertx.eventBus().request("registration.schedule.batch", benchmark.events(ids))
+        .toCompletionStage().toCompletableFuture().get();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public void schedule(Unscheduled unscheduled) throws InterruptedException {
+
+    CountDownLatch replies = new CountDownLatch(REQUESTS);
+    EventBus eb = vertx.eventBus();
+    for (int index = 0; index < REQUESTS; index++) {
+      eb.request("registration.schedule", unscheduled.events.getJsonObject(index), reply -> replies.countDown());
+    }
+    replies.await();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public void cancel(Scheduled scheduled) throws InterruptedException {
+
+    CountDownLatch replies = new CountDownLatch(REQUESTS);
+    EventBus eb = vertx.eventBus();
+    for (int index = 0; index < REQUESTS; index++) {
+      eb.request("registration.cancel", scheduled.ids.getString(index), reply -> replies.countDown());
+    }
+    replies.await();
+  }
+
+  private JsonArray nextIds() {
+
+    JsonArray next = new JsonArray();
+    int first = invocation++ * REQUESTS;
+    for (int index = 0; index < REQUESTS; index++) {
+      next.add("registration-" + (first + index));
+    }
+    return next;
+  }
+
+  private JsonArray events(JsonArray ids) {
+
+    JsonArray events = new JsonArray();
+    for (int index = 0; index < ids.size(); index++) {
+      events.add(new JsonObject()
+        .put("cron_id", ids.getString(index))
+        .put("cron_expression", "0 0 0 1 1 ?")
+        .put("address", "registration.target"));
+    }
+    return events;
+  }
+
+}
@@ -0,0 +1,110 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.AppendLogScheduleStore;
+import com.diabolicallabs.vertx.cron.CronPlanCache;
+import com.diabolicallabs.vertx.cron.ScheduleSnapshot;
+import com.diabolicallabs.vertx.cron.ScheduleStore;
+import com.diabolicallabs.vertx.cron.SnapshotScheduleStore;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a warm restart from an {@link AppendLogScheduleStore}: reading the log back, and reading
+ * it back while resolving the plan of every schedule as the scheduler does before arming them. Then
+ * the same from a {@link SnapshotScheduleStore}, which only maps its snapshot on start.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreRestoreBenchmark {
+
+  private static final String[] EXPRESSIONS = {
+    "*/1 * * * * ?", "0 */5 * * * ?", "0 0 9-17 ? * MON-FRI", "0 30 2 * * ?", "0 0/15 * * * ?"
+  };
+
+  @Param({"100000"})
+  public int schedules;
+
+  private Path path;
+  private JsonObject config;
+  private Path snapshotPath;
+  private JsonObject snapshotConfig;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+
+    path = Files.createTempFile("vertx-cron-bench", ".log");
+    config = new JsonObject().put("path", path.toString());
+
+    snapshotPath = Files.createTempFile("vertx-cron-bench", ".snapshot");
+    Files.delete(snapshotPath);
+    snapshotConfig = new JsonObject().put("path", snapshotPath.toString());
+
+    fill(new AppendLogScheduleStore(config));
+    fill(new SnapshotScheduleStore(snapshotConfig));
+  }
+
+  private void fill(ScheduleStore store) throws IOException {
+
+    for (int i = 0; i < schedules; i++) {
+      store.put("cron-" + i, new JsonObject()
+        .put("cron_expression", EXPRESSIONS[i % EXPRESSIONS.length])
+        .put("address", "bench.address." + (i % 100))
+        .put("message", new JsonObject().put("sequence", i)));
+    }
+    store.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+    Files.deleteIfExists(snapshotPath);
+  }
+
+  @Benchmark
+  public void load(Blackhole blackhole) throws IOException {
+    new AppendLogScheduleStore(config).load((id, schedule) -> blackhole.consume(schedule));
+  }
+
+  @Benchmark
+  public void loadAndPlan(Blackhole blackhole) throws IOException {
+
+    new AppendLogScheduleStore(config).load((id, schedule) -> {
+      String expression = schedule.getString("cron_expression");
+      blackhole.consume(CronPlanCache.shared().get(expression, null).nextFireAfter(System.currentTimeMillis()));
+    });
+  }
+
+  @Benchmark
+  public int snapshotOpen() throws IOException {
+    ScheduleSnapshot snapshot = new SnapshotScheduleStore(snapshotConfig).open();
+    return snapshot.indexOf("cron-" + (schedules - 1));
+  }
+
+  @Benchmark
+  public void snapshotLoad(Blackhole blackhole) throws IOException {
+    new SnapshotScheduleStore(snapshotConfig).load((id, schedule) -> blackhole.consume(schedule));
+  }
+
+}
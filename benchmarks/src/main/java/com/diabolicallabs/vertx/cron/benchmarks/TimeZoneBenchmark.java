@@ -0,0 +1,60 @@
+package com.diabolicallabs.vertx.cron.benchmarks;
+
+import com.diabolicallabs.vertx.cron.CronObservable;
+import com.diabolicallabs.vertx.cron.TimeZones;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.Timed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the timezone_name check made for every schedule request: the scan over
+ * {@link TimeZone#getAvailableIDs()} the scheduler used to do against the {@link TimeZones} index,
+ * and the resulting {@link CronObservable#cronspec} setup cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeZoneBenchmark {
+
+  @Param({"Africa/Abidjan", "US/Eastern", "Zulu"})
+  public String timeZoneName;
+
+  @Benchmark
+  public boolean availableIdsScan() {
+    return Arrays.stream(TimeZone.getAvailableIDs()).anyMatch(available -> available.equals(timeZoneName));
+  }
+
+  @Benchmark
+  public boolean indexLookup() {
+    return TimeZones.isValid(timeZoneName);
+  }
+
+  @Benchmark
+  public ZoneId indexResolve() {
+    return TimeZones.zoneId(timeZoneName);
+  }
+
+  @Benchmark
+  public Observable<Timed<Long>> cronspecSetup() {
+    return CronObservable.cronspec(Schedulers.trampoline(), "0 */5 * * * ?", timeZoneName);
+  }
+
+}
@@ -0,0 +1,214 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * The default {@link ScheduleStore}: a local, append-only log with one line per put or remove.
+ * Writes are queued on the event loop and appended by {@link #flush()}. Once cancelled and replaced
+ * schedules make up most of the log, {@link #compact()} rewrites it with only the live schedules.
+ * A flush with nothing to write still touches the log, so its modification time tells when the
+ * scheduler was last running.
+ *
+ * <p>Configuration:
+ * <pre>
+ * {
+ *   "path": &lt;string&gt;,        the log file, created if it does not exist
+ *   "compaction_ratio": &lt;number&gt; compact once the log holds this many records per live schedule, default 2
+ * }
+ * </pre>
+ */
+public class AppendLogScheduleStore implements ScheduleStore {
+
+  private static final char PUT = '+';
+  private static final char REMOVE = '-';
+  private static final int MIN_COMPACTION_RECORDS = 1024;
+
+  Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Path path;
+  private final double compactionRatio;
+  private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+
+  private BufferedWriter writer;
+  private long records;
+  private long live;
+  private long lastWritten = -1;
+
+  public AppendLogScheduleStore(JsonObject config) {
+
+    String path = config.getString("path");
+    if (path == null) throw new IllegalArgumentException("store path is required");
+
+    this.path = Paths.get(path);
+    this.compactionRatio = config.getDouble("compaction_ratio", 2.0);
+  }
+
+  @Override
+  public synchronized void load(BiConsumer<String, JsonObject> consumer) throws IOException {
+    lastWritten = modified(path);
+    read().forEach(consumer);
+  }
+
+  @Override
+  public synchronized long lastWritten() {
+    return lastWritten;
+  }
+
+  @Override
+  public void put(String id, JsonObject schedule) {
+    pending.add(PUT + new JsonObject().put("cron_id", id).put("schedule", schedule).encode());
+  }
+
+  @Override
+  public void remove(String id) {
+    pending.add(REMOVE + new JsonObject().put("cron_id", id).encode());
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+
+    if (pending.isEmpty()) {
+      if (Files.exists(path)) Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+      return;
+    }
+
+    if (writer == null) {
+      writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    String line;
+    while ((line = pending.poll()) != null) {
+      writer.write(line);
+      writer.newLine();
+      records++;
+      live += line.charAt(0) == PUT ? 1 : -1;
+    }
+    writer.flush();
+  }
+
+  @Override
+  public synchronized void compact() throws IOException {
+
+    flush();
+    if (records < MIN_COMPACTION_RECORDS || records <= compactionRatio * Math.max(live, 1)) return;
+
+    Map<String, JsonObject> schedules = read();
+    Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+    try (BufferedWriter out = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, JsonObject> entry : schedules.entrySet()) {
+        out.write(PUT + new JsonObject().put("cron_id", entry.getKey()).put("schedule", entry.getValue()).encode());
+        out.newLine();
+      }
+    }
+
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+    Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    logger.info("Compacted schedule log " + path + " from " + records + " to " + schedules.size() + " records");
+    records = schedules.size();
+    live = schedules.size();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+
+    flush();
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  /**
+   * The number of records in the log, as of the last load, flush or compaction.
+   */
+  synchronized long records() {
+    return records;
+  }
+
+  /**
+   * Deletes the log once everything in it has been written somewhere else. Changes that have not
+   * been flushed yet are kept for the next flush.
+   */
+  synchronized void truncate() throws IOException {
+
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+    Files.deleteIfExists(path);
+    records = 0;
+    live = 0;
+  }
+
+  /**
+   * Applies the puts and removes in the log, in order, to the schedules.
+   */
+  synchronized void replay(Map<String, JsonObject> schedules) throws IOException {
+    read(schedules);
+  }
+
+  /**
+   * @return the modification time of the file, or -1 if there is none
+   */
+  static long modified(Path file) throws IOException {
+    return Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : -1;
+  }
+
+  private Map<String, JsonObject> read() throws IOException {
+    return read(new LinkedHashMap<>());
+  }
+
+  private Map<String, JsonObject> read(Map<String, JsonObject> schedules) throws IOException {
+
+    records = 0;
+
+    if (Files.exists(path)) {
+      try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.isEmpty()) continue;
+          records++;
+          try {
+            JsonObject record = new JsonObject(line.substring(1));
+            String id = record.getString("cron_id");
+            if (line.charAt(0) == PUT) {
+              schedules.put(id, record.getJsonObject("schedule"));
+            } else {
+              schedules.remove(id);
+            }
+          } catch (DecodeException | ClassCastException e) {
+            // Most likely the last line of a log that was being written when the process died
+            logger.warn("Skipping unreadable record in schedule log " + path + ": " + line);
+          }
+        }
+      }
+    }
+
+    live = schedules.size();
+    return schedules;
+  }
+
+}
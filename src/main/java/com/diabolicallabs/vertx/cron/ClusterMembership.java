@@ -0,0 +1,150 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.eventbus.Message;
+import io.vertx.reactivex.core.eventbus.MessageConsumer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the scheduler nodes sharing an address base across a cluster, and which of them owns each
+ * schedule id. Every node publishes a heartbeat on the membership address; a node that misses
+ * heartbeats for the timeout is dropped, and a node that stops cleanly says so. The nodes can also
+ * be the instances of a deployment within one Vert.x, whose heartbeats are kept local. Confined to
+ * the event loop of the vertical that created it.
+ */
+final class ClusterMembership {
+
+  Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Vertx vertx;
+  private final String address;
+  private final String nodeId;
+  private final long heartbeatMillis;
+  private final long timeoutMillis;
+  private final boolean localOnly;
+  private final Runnable changed;
+
+  private final HashRing ring = new HashRing();
+  private final Map<String, Long> lastSeen = new HashMap<>();
+  private MessageConsumer<Object> consumer;
+  private long timerId = -1;
+
+  /**
+   * @param localOnly true to track the nodes of this Vert.x only
+   * @param changed   called whenever a node joins or leaves
+   */
+  ClusterMembership(Vertx vertx, String address, String nodeId, long heartbeatMillis, long timeoutMillis, boolean localOnly, Runnable changed) {
+    this.vertx = vertx;
+    this.address = address;
+    this.nodeId = nodeId;
+    this.heartbeatMillis = heartbeatMillis;
+    this.timeoutMillis = timeoutMillis;
+    this.localOnly = localOnly;
+    this.changed = changed;
+    ring.add(nodeId);
+  }
+
+  /**
+   * Joins the cluster. The other nodes answer the join with a heartbeat.
+   */
+  void start() {
+
+    consumer = localOnly ? vertx.eventBus().localConsumer(address, this::received) : vertx.eventBus().consumer(address, this::received);
+    announce("join");
+    timerId = vertx.setPeriodic(heartbeatMillis, id -> {
+      announce("alive");
+      expire();
+    });
+  }
+
+  void stop() {
+
+    if (timerId != -1) vertx.cancelTimer(timerId);
+    if (consumer != null) consumer.unregister();
+    announce("leave");
+  }
+
+  String nodeId() {
+    return nodeId;
+  }
+
+  String owner(String id) {
+    return ring.owner(id);
+  }
+
+  boolean owns(String id) {
+    return nodeId.equals(ring.owner(id));
+  }
+
+  int size() {
+    return ring.size();
+  }
+
+  /**
+   * @return this node and the others it knows of
+   */
+  List<String> nodes() {
+
+    List<String> nodes = new ArrayList<>(lastSeen.size() + 1);
+    nodes.add(nodeId);
+    nodes.addAll(lastSeen.keySet());
+    return nodes;
+  }
+
+  private void received(Message<Object> message) {
+
+    JsonObject body = (JsonObject) message.body();
+    String node = body.getString("node_id");
+    if (node.equals(nodeId)) return;
+
+    String state = body.getString("state");
+    if (state.equals("leave")) {
+      lastSeen.remove(node);
+      if (ring.remove(node)) {
+        logger.info("Scheduler node " + node + " left");
+        changed.run();
+      }
+      return;
+    }
+
+    lastSeen.put(node, System.currentTimeMillis());
+    if (state.equals("join")) announce("alive");
+    if (ring.add(node)) {
+      logger.info("Scheduler node " + node + " joined");
+      changed.run();
+    }
+  }
+
+  private void expire() {
+
+    long now = System.currentTimeMillis();
+    boolean expired = false;
+
+    Iterator<Map.Entry<String, Long>> nodes = lastSeen.entrySet().iterator();
+    while (nodes.hasNext()) {
+      Map.Entry<String, Long> node = nodes.next();
+      if (now - node.getValue() > timeoutMillis) {
+        nodes.remove();
+        ring.remove(node.getKey());
+        logger.warn("Scheduler node " + node.getKey() + " stopped responding");
+        expired = true;
+      }
+    }
+
+    if (expired) changed.run();
+  }
+
+  private void announce(String state) {
+    vertx.eventBus().publish(address, new JsonObject().put("node_id", nodeId).put("state", state), new DeliveryOptions().setLocalOnly(localOnly));
+  }
+
+}
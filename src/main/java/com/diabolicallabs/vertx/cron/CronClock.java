@@ -0,0 +1,39 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.reactivex.Scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The time, in epoch milliseconds, that schedules are planned by. Together with an Rx
+ * {@link Scheduler} that times the delays, a clock that follows the scheduler, such as
+ * {@link #of(Scheduler)} of a {@code TestScheduler}, lets schedules run on simulated time: days of
+ * fires are made as fast as the scheduler is advanced.
+ */
+@FunctionalInterface
+public interface CronClock {
+
+  /**
+   * The wall clock. When timing is precise, it is read as a {@link MonotonicClock}.
+   */
+  CronClock SYSTEM = wall(System::currentTimeMillis);
+
+  long millis();
+
+  /**
+   * @return a clock that reads the given wall clock, which may be stepped. Like {@link #SYSTEM},
+   * precise timing only reads it to start from, and then follows {@link System#nanoTime()}.
+   */
+  static CronClock wall(LongSupplier millis) {
+    return new WallClock(millis);
+  }
+
+  /**
+   * @return a clock that reads the time of the scheduler
+   */
+  static CronClock of(Scheduler scheduler) {
+    return () -> scheduler.now(TimeUnit.MILLISECONDS);
+  }
+
+}
@@ -0,0 +1,40 @@
+package com.diabolicallabs.vertx.cron;
+
+import java.util.Collection;
+
+/**
+ * Keeps the timers for the schedules owned by a {@link CronEventSchedulerVertical} and hands each
+ * schedule back to the vertical when it is due. Engines are confined to the event loop of the
+ * vertical that created them.
+ */
+interface CronEngine {
+
+  void start();
+
+  void schedule(CronSchedule schedule);
+
+  /**
+   * Arms all the schedules in one pass.
+   */
+  default void scheduleAll(Collection<CronSchedule> schedules) {
+    schedules.forEach(this::schedule);
+  }
+
+  void cancel(String id);
+
+  default void cancelAll(Collection<String> ids) {
+    ids.forEach(this::cancel);
+  }
+
+  int size();
+
+  void stop();
+
+  /**
+   * Receives each schedule as it comes due, with the epoch millisecond it was planned to fire at.
+   */
+  interface FireHandler {
+    void fire(CronSchedule schedule, long plannedMillis);
+  }
+
+}
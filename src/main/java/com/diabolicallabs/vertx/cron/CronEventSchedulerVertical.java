@@ -1,43 +1,328 @@
 package com.diabolicallabs.vertx.cron;
 
 import io.reactivex.Scheduler;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.AsyncMap;
 import io.vertx.reactivex.core.AbstractVerticle;
 import io.vertx.reactivex.core.RxHelper;
 import io.vertx.reactivex.core.eventbus.EventBus;
+import io.vertx.reactivex.core.eventbus.Message;
 import io.vertx.reactivex.core.shareddata.LocalMap;
-import io.vertx.reactivex.core.shareddata.SharedData;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.TimeZone;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class CronEventSchedulerVertical extends AbstractVerticle {
 
+  // The most missed fires of a schedule that are counted and coalesced into one
+  private static final int MAX_MISFIRES = 1000;
+
   Logger logger = LoggerFactory.getLogger(this.getClass());
 
+  private final Scheduler scheduler;
+  private final CronClock clock;
+
+  /**
+   * The clock the engine plans fires by, and so the one they are judged by: the given clock, read
+   * as a monotonic one when timing is precise.
+   */
+  private CronClock planningClock;
+  private String addressBase;
+  private String nodeId;
+  private LocalMap<String, JsonObject> registry;
+  private ScheduleIndex scheduleIndex;
+  private CronEngine engine;
+  private ScheduleStore store;
+  private PendingSchedules pending;
+  private long storeWritten = -1;
+  private long misfireThreshold;
+  private long spreadWindow;
+  private long sendTimeout;
+  private InFlightLimits inFlight;
+  private FireDispatcher dispatcher;
+  private EncodedMessageCache encodedMessages;
+  private long batchWindow;
+  private int batchMaxSize;
+  private int lookahead;
+  private final Map<String, FireBatch> batches = new HashMap<>();
+
+  private ClusterMembership membership;
+  private AsyncMap<String, JsonObject> clusterSchedules;
+  private boolean claiming;
+  private ShardLeases leases;
+  private CronMetrics metrics = CronMetrics.NOOP;
+  private long fired;
+
+  public CronEventSchedulerVertical() {
+    this(null);
+  }
+
+  /**
+   * @param scheduler the scheduler the rx engine times its schedules with, or null to use the
+   *                  scheduler of the vertical's Vert.x instance
+   */
+  public CronEventSchedulerVertical(Scheduler scheduler) {
+    this(scheduler, CronClock.SYSTEM);
+  }
+
+  /**
+   * Runs the schedules on the time of the clock. Given a {@code TestScheduler} and
+   * {@link CronClock#of(Scheduler)} of it, the schedules of either engine fire as the scheduler is
+   * advanced, on the thread advancing it, so simulated days pass in milliseconds.
+   *
+   * @param scheduler the scheduler the engine times its schedules with, or null to use the
+   *                  scheduler of the vertical's Vert.x instance with the rx engine and a Vert.x
+   *                  timer with the wheel engine
+   * @param clock     the clock fires are planned by
+   */
+  public CronEventSchedulerVertical(Scheduler scheduler, CronClock clock) {
+    this.scheduler = scheduler;
+    this.clock = clock;
+  }
+
   @Override
   public void start(Promise<Void> startFuture) throws Exception {
 
-    EventBus eb = vertx.eventBus();
+    addressBase = config().getString("address_base", "cron");
 
-    String addressBase = config().getString("address_base", "cron");
+    boolean clusterMode = config().getBoolean("cluster_mode", false);
+    if (clusterMode && !vertx.isClustered()) {
+      startFuture.fail("cluster_mode requires a clustered Vert.x");
+      return;
+    }
+    boolean partitionInstances = config().getBoolean("partition_instances", false);
+    if ((clusterMode || partitionInstances) && config().containsKey("store")) {
+      startFuture.fail("store can not be used with " + (clusterMode ? "cluster_mode" : "partition_instances"));
+      return;
+    }
+
+    // When partitioned, each vertical keeps the ids it owns to itself, as the hash ring decides who owns what
+    boolean partitioned = clusterMode || partitionInstances;
+    nodeId = UUID.randomUUID().toString();
+    String registryName = partitioned ? addressBase + ".node." + nodeId + ".cron.ids" : addressBase + ".cron.ids";
+    registry = vertx.sharedData().getLocalMap(registryName);
+    scheduleIndex = ScheduleIndex.shared(vertx.getDelegate(), registryName + ".index");
+
+    if (config().getBoolean("metrics", false)) {
+      metrics = MicrometerCronMetrics.create(addressBase, partitioned ? nodeId : null, config().getInteger("metrics_max_addresses", 100), registry.getDelegate());
+    }
+
+    String timing = config().getString("timing", "wall");
+    if (!timing.equals("wall") && !timing.equals("precise")) {
+      startFuture.fail("timing must be 'wall' or 'precise'");
+      return;
+    }
+    boolean precise = timing.equals("precise");
+    planningClock = precise ? MonotonicClock.reading(clock) : clock;
+
+    misfireThreshold = config().getLong("misfire_threshold_ms", 1000L);
+    spreadWindow = config().getLong("spread_window_ms", 0L);
+    sendTimeout = config().getLong("send_timeout_ms", DeliveryOptions.DEFAULT_TIMEOUT);
+    inFlight = new InFlightLimits(config().getInteger("max_in_flight_per_address", 0));
+
+    batchWindow = config().getLong("batch_window_ms", 0L);
+    batchMaxSize = config().getInteger("batch_max_size", 1000);
+    lookahead = config().getInteger("lookahead_fires", 0);
+
+    long encodedCacheBytes = config().getLong("encoded_message_cache_bytes", 0L);
+    if (encodedCacheBytes > 0) {
+      encodedMessages = new EncodedMessageCache(encodedCacheBytes);
+      try {
+        vertx.getDelegate().eventBus().registerCodec(new EncodedMessageCodec());
+      } catch (IllegalStateException ise) {
+        // Already registered by another instance
+      }
+    }
+
+    String dispatch = config().getString("dispatch", "event_loop");
+    if (dispatch.equals("partitioned")) {
+      dispatcher = new FireDispatcher.Partitioned(vertx.getDelegate(), config().getInteger("dispatch_partitions", Runtime.getRuntime().availableProcessors()));
+    } else if (dispatch.equals("worker") || dispatch.equals("virtual")) {
+      if (dispatch.equals("virtual")) {
+        dispatcher = FireDispatcher.Virtual.create();
+        if (dispatcher == null) logger.warn("Virtual threads need Java 21, delivering fires on worker threads instead");
+      }
+      if (dispatcher == null) {
+        dispatcher = new FireDispatcher.Worker(vertx.getDelegate(), addressBase + ".cron.dispatch", config().getInteger("dispatch_pool_size", 20));
+      }
+    } else if (!dispatch.equals("event_loop")) {
+      startFuture.fail("dispatch must be 'event_loop', 'partitioned', 'worker' or 'virtual'");
+      return;
+    }
+
+    String engineName = config().getString("engine", "rx");
+    if (engineName.equals("wheel")) {
+      engine = new WheelCronEngine(vertx, scheduler, planningClock, config().getLong("wheel_tick_ms", 100L), precise, registry, this::fire);
+    } else if (engineName.equals("rx")) {
+      engine = new RxCronEngine(scheduler != null ? scheduler : RxHelper.scheduler(vertx), planningClock, precise, registry, this::fire);
+    } else {
+      startFuture.fail("engine must be 'rx' or 'wheel'");
+      return;
+    }
+    engine.start();
+
+    if (config().getBoolean("singleton", false)) {
+      leases = new ShardLeases(vertx, addressBase + ".cron.leases", nodeId, config().getInteger("lease_shards", 16), config().getLong("lease_ms", 3000L));
+      leases.start();
+    }
+
+    if (partitioned) {
+      startPartitioned(clusterMode, startFuture);
+      return;
+    }
+
+    JsonObject storeConfig = config().getJsonObject("store");
+    if (storeConfig == null) {
+      registerConsumers();
+      startFuture.complete();
+      return;
+    }
+
+    try {
+      store = createStore(storeConfig);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      startFuture.fail(e);
+      return;
+    }
+
+    long horizon = storeConfig.getLong("restore_horizon_ms", 60000L);
+
+    context.<Object>executeBlocking(() -> {
+      ScheduleSnapshot snapshot = store.open();
+      Map<String, JsonObject> stored = new LinkedHashMap<>();
+      if (snapshot == null) store.load(stored::put);
+      storeWritten = store.lastWritten();
+      return snapshot != null ? new PendingSchedules(snapshot) : stored;
+    }, true).onComplete(loaded -> {
+      if (loaded.failed()) {
+        startFuture.fail(loaded.cause());
+        return;
+      }
+
+      if (loaded.result() instanceof PendingSchedules) {
+        pending = (PendingSchedules) loaded.result();
+        int restored = restore(pending.take(planningClock.millis() + horizon), storeWritten);
+        logger.info("Restored " + restored + " schedules, " + pending.size() + " more will be restored as they come due");
+        vertx.setPeriodic(Math.max(horizon / 2, 1), id -> restorePending(id, horizon));
+      } else {
+        @SuppressWarnings("unchecked")
+        int restored = restore((Map<String, JsonObject>) loaded.result(), storeWritten);
+        logger.info("Restored " + restored + " schedules");
+      }
+      registerConsumers();
+
+      vertx.setPeriodic(storeConfig.getLong("flush_interval_ms", 1000L), id -> storeTask(ScheduleStore::flush));
+      vertx.setPeriodic(storeConfig.getLong("compaction_interval_ms", 60000L), id -> storeTask(ScheduleStore::compact));
+      startFuture.complete();
+    });
+  }
+
+  /**
+   * Joins the other scheduler nodes with the same address base: across the cluster, or the other
+   * instances in this Vert.x. Every schedule request is kept in a map shared by the nodes, and run by
+   * the node that owns its id on the hash ring; when nodes join or leave, each node hands off the
+   * schedules it no longer owns and claims the ones it now owns.
+   */
+  private void startPartitioned(boolean clusterMode, Promise<Void> startFuture) {
+
+    long heartbeat = config().getLong("heartbeat_ms", 1000L);
+    long timeout = config().getLong("node_timeout_ms", heartbeat * 5);
+
+    String mapName = addressBase + ".cron.schedules";
+    Future<AsyncMap<String, JsonObject>> schedules = clusterMode
+      ? vertx.getDelegate().sharedData().getClusterWideMap(mapName)
+      : vertx.getDelegate().sharedData().getLocalAsyncMap(mapName);
+
+    schedules.onComplete(map -> {
+      if (map.failed()) {
+        startFuture.fail(map.cause());
+        return;
+      }
+
+      clusterSchedules = map.result();
+      String membershipAddress = addressBase + (clusterMode ? ".cron.nodes" : ".cron.instances");
+      membership = new ClusterMembership(vertx, membershipAddress, nodeId, heartbeat, timeout, !clusterMode, this::rebalance);
+      registerNodeConsumers(nodeAddress(nodeId));
+      membership.start();
+
+      // Give the other nodes a heartbeat to answer the join before claiming any schedules
+      vertx.setTimer(heartbeat, id -> {
+        claiming = true;
+        rebalance();
+        registerConsumers();
+        startFuture.complete();
+      });
+    });
+  }
+
+  private void registerConsumers() {
+
+    EventBus eb = vertx.eventBus();
 
     String create_address = addressBase + ".schedule";
     String cancel_address = addressBase + ".cancel";
+    String create_batch_address = create_address + ".batch";
+    String cancel_batch_address = cancel_address + ".batch";
+    String instances_address = addressBase + ".instances";
+    String get_address = addressBase + ".get";
+    String stats_address = addressBase + ".stats";
+    String list_address = addressBase + ".list";
+    String cancel_by_address = cancel_address + ".by";
+    String update_address = addressBase + ".update";
+
+    eb.consumer(instances_address, this::instances);
+    eb.consumer(get_address, handler -> lookup(handler, ".get", this::request));
+    eb.consumer(stats_address, handler -> lookup(handler, ".schedule.stats", this::stats));
+    eb.consumer(list_address, this::list);
+    eb.consumer(cancel_by_address, this::cancelBy);
+
+    eb.consumer(update_address, handler -> {
+
+      if (!(handler.body() instanceof JsonObject) || !(((JsonObject) handler.body()).getValue("cron_id") instanceof String)) {
+        handler.fail(-1, "Message must be a JSON object with a cron_id");
+        return;
+      }
+
+      JsonObject changes = (JsonObject) handler.body();
+      String id = changes.getString("cron_id");
+      if (membership == null || membership.owns(id)) {
+        update(handler, changes);
+      } else {
+        forward(handler, nodeAddress(membership.owner(id)) + ".update", changes);
+      }
+    });
 
     eb.consumer(cancel_address, handler -> {
 
       String id = (String) handler.body();
-      SharedData sd = vertx.sharedData();
-      sd.getLocalMap(addressBase + ".cron.ids").remove(id);
-
-      handler.reply(null);
+      if (membership == null || membership.owns(id)) {
+        cancel(id);
+        handler.reply(null);
+      } else {
+        forward(handler, nodeAddress(membership.owner(id)) + ".cancel", id);
+      }
     });
 
     eb.consumer(create_address, handler -> {
@@ -45,88 +330,1046 @@ public class CronEventSchedulerVertical extends AbstractVerticle {
       if (!(handler.body() instanceof JsonObject)) throw new IllegalArgumentException("Message must be a JSON object");
 
       JsonObject message = (JsonObject) handler.body();
+      if (membership == null) {
+        schedule(handler, message);
+        return;
+      }
+
+      // The id decides which node owns the schedule, so it has to be known up front
+      if (!message.containsKey("cron_id")) message = message.copy().put("cron_id", UUID.randomUUID().toString());
+      String id = message.getString("cron_id");
+      if (membership.owns(id)) {
+        schedule(handler, message);
+      } else {
+        forward(handler, nodeAddress(membership.owner(id)) + ".schedule", message);
+      }
+    });
+
+    eb.consumer(create_batch_address, handler -> {
+
+      if (!(handler.body() instanceof JsonArray)) {
+        handler.fail(-1, "Message must be a JSON array");
+        return;
+      }
+
+      JsonArray messages = (JsonArray) handler.body();
+      if (membership == null) {
+        handler.reply(scheduleAll(messages));
+        return;
+      }
+
+      JsonArray identified = new JsonArray();
+      for (Object entry : messages) {
+        if (entry instanceof JsonObject && !((JsonObject) entry).containsKey("cron_id")) {
+          entry = ((JsonObject) entry).copy().put("cron_id", UUID.randomUUID().toString());
+        }
+        identified.add(entry);
+      }
+      forwardAll(handler, identified, entry -> entry instanceof JsonObject ? ((JsonObject) entry).getString("cron_id") : null, ".schedule.batch", this::scheduleAll);
+    });
+
+    eb.consumer(cancel_batch_address, handler -> {
+
+      if (!(handler.body() instanceof JsonArray)) {
+        handler.fail(-1, "Message must be a JSON array");
+        return;
+      }
+
+      JsonArray ids = (JsonArray) handler.body();
+      if (membership == null) {
+        handler.reply(cancelAll(ids));
+      } else {
+        forwardAll(handler, ids, entry -> entry instanceof String ? (String) entry : null, ".cancel.batch", this::cancelAll);
+      }
+    });
+  }
+
+  /**
+   * Replies with the stats of every node sharing the schedules, in the order of
+   * {@link ClusterMembership#nodes()}, or just this vertical's if they are not partitioned. A node
+   * that does not answer is listed with the error.
+   */
+  private void instances(Message<Object> handler) {
+
+    if (membership == null) {
+      handler.reply(new JsonArray().add(stats()));
+      return;
+    }
+
+    List<String> nodes = membership.nodes();
+    Object[] results = new Object[nodes.size()];
+    AtomicInteger remaining = new AtomicInteger(nodes.size());
+
+    for (int index = 0; index < nodes.size(); index++) {
+      int position = index;
+      String node = nodes.get(index);
+      if (node.equals(nodeId)) {
+        results[position] = stats();
+        if (remaining.decrementAndGet() == 0) handler.reply(new JsonArray(Arrays.asList(results)));
+        continue;
+      }
+
+      vertx.eventBus().request(nodeAddress(node) + ".stats", null, reply -> {
+        results[position] = reply.succeeded()
+          ? reply.result().body()
+          : new JsonObject().put("node_id", node).put("error", reply.cause().getMessage());
+        if (remaining.decrementAndGet() == 0) handler.reply(new JsonArray(Arrays.asList(results)));
+      });
+    }
+  }
+
+  private JsonObject stats() {
+    return new JsonObject()
+      .put("node_id", nodeId)
+      .put("schedules", registry.size() + (pending != null ? pending.size() : 0))
+      .put("fires", fired);
+  }
+
+  /**
+   * The addresses other nodes forward requests to once they have worked out that this node owns
+   * them. They are served here whatever this node thinks of the ring, so a request is never
+   * forwarded twice.
+   */
+  private void registerNodeConsumers(String nodeAddress) {
+
+    EventBus eb = vertx.eventBus();
+
+    eb.consumer(nodeAddress + ".cancel", handler -> {
+      cancel((String) handler.body());
+      handler.reply(null);
+    });
+    eb.consumer(nodeAddress + ".schedule", handler -> schedule(handler, (JsonObject) handler.body()));
+    eb.consumer(nodeAddress + ".schedule.batch", handler -> handler.reply(scheduleAll((JsonArray) handler.body())));
+    eb.consumer(nodeAddress + ".cancel.batch", handler -> handler.reply(cancelAll((JsonArray) handler.body())));
+    eb.consumer(nodeAddress + ".stats", handler -> handler.reply(stats()));
+    eb.consumer(nodeAddress + ".get", handler -> describe(handler, this::request));
+    eb.consumer(nodeAddress + ".schedule.stats", handler -> describe(handler, this::stats));
+    eb.consumer(nodeAddress + ".list", handler -> listLocal(ScheduleIndex.Query.of((JsonObject) handler.body()), handler));
+    eb.consumer(nodeAddress + ".update", handler -> update(handler, (JsonObject) handler.body()));
+    eb.consumer(nodeAddress + ".cancel.by", handler -> handler.reply(cancelMatching(ScheduleIndex.Query.of((JsonObject) handler.body()))));
+  }
+
+  /**
+   * Answers a request about the schedule with the id in the body here, if this node owns it, or
+   * forwards it to the owner.
+   */
+  private void lookup(Message<Object> handler, String suffix, Function<CronSchedule, JsonObject> view) {
+
+    if (!(handler.body() instanceof String)) {
+      handler.fail(-1, "Message must be a cron_id");
+      return;
+    }
+
+    String id = (String) handler.body();
+    if (membership == null || membership.owns(id)) {
+      describe(handler, view);
+    } else {
+      forward(handler, nodeAddress(membership.owner(id)) + suffix, id);
+    }
+  }
+
+  private void describe(Message<Object> handler, Function<CronSchedule, JsonObject> view) {
+
+    String id = (String) handler.body();
+    CronSchedule schedule = scheduleIndex.get(id);
+    JsonObject waiting = schedule == null && pending != null ? pending.get(id) : null;
+    if (waiting != null) schedule = unrestored(id, waiting);
+
+    if (schedule == null) {
+      handler.fail(-1, "cron_id not found: " + handler.body());
+    } else {
+      handler.reply(view.apply(schedule));
+    }
+  }
+
+  /**
+   * @return a schedule made from the request of one still waiting to be restored, to describe it;
+   * it is not armed
+   */
+  private CronSchedule unrestored(String id, JsonObject request) {
+    return new CronSchedule(id, request, spreadWindow, sendTimeout, false);
+  }
+
+  /**
+   * @return the request the schedule was made with
+   */
+  private JsonObject request(CronSchedule schedule) {
+    return schedule.request.copy().put("cron_id", schedule.id);
+  }
+
+  private JsonObject stats(CronSchedule schedule) {
+    return ScheduleIndex.stats(schedule, ScheduleIndex.nextFire(schedule, planningClock.millis()));
+  }
+
+  /**
+   * Replies with a page of the schedules matching the request, gathered from every node sharing the
+   * schedules when they are partitioned. The page is put together on a worker thread, so listing
+   * many schedules does not hold up their fires.
+   */
+  private void list(Message<Object> handler) {
+
+    if (handler.body() != null && !(handler.body() instanceof JsonObject)) {
+      handler.fail(-1, "Message must be a JSON object");
+      return;
+    }
+
+    JsonObject filter = (JsonObject) handler.body();
+    ScheduleIndex.Query query;
+    try {
+      query = ScheduleIndex.Query.of(filter);
+    } catch (IllegalArgumentException iae) {
+      handler.fail(-1, iae.getMessage());
+      return;
+    }
+
+    if (membership == null) {
+      listLocal(query, handler);
+      return;
+    }
+
+    List<String> nodes = membership.nodes();
+    JsonObject[] pages = new JsonObject[nodes.size()];
+    AtomicInteger remaining = new AtomicInteger(nodes.size());
+    Handler<Void> merge = done -> {
+      List<JsonObject> answered = new ArrayList<>();
+      for (JsonObject page : pages) {
+        if (page != null) answered.add(page);
+      }
+      handler.reply(ScheduleIndex.merge(answered, query.limit));
+    };
+
+    for (int index = 0; index < nodes.size(); index++) {
+      int position = index;
+      vertx.eventBus().request(nodeAddress(nodes.get(index)) + ".list", filter != null ? filter : new JsonObject(), reply -> {
+        if (reply.succeeded()) {
+          pages[position] = (JsonObject) reply.result().body();
+        } else {
+          logger.warn("Unable to list the schedules of node " + nodes.get(position) + ": " + reply.cause().getMessage());
+        }
+        if (remaining.decrementAndGet() == 0) merge.handle(null);
+      });
+    }
+  }
 
+  /**
+   * Cancels every schedule with the address, cron_expression, tag and group in the request, on every
+   * node sharing the schedules when they are partitioned, and replies with how many were cancelled.
+   */
+  private void cancelBy(Message<Object> handler) {
+
+    if (!(handler.body() instanceof JsonObject)) {
+      handler.fail(-1, "Message must be a JSON object");
+      return;
+    }
+
+    JsonObject filter = (JsonObject) handler.body();
+    ScheduleIndex.Query query;
+    try {
+      query = ScheduleIndex.Query.of(filter);
+    } catch (IllegalArgumentException iae) {
+      handler.fail(-1, iae.getMessage());
+      return;
+    }
+    if (!query.selective()) {
+      handler.fail(-1, "Message must contain an address, cron_expression, tag or group");
+      return;
+    }
+
+    if (membership == null) {
+      handler.reply(cancelMatching(query));
+      return;
+    }
+
+    List<String> nodes = membership.nodes();
+    AtomicInteger cancelled = new AtomicInteger();
+    AtomicInteger remaining = new AtomicInteger(nodes.size());
+    for (String node : nodes) {
+      vertx.eventBus().request(nodeAddress(node) + ".cancel.by", filter, reply -> {
+        if (reply.succeeded()) {
+          cancelled.addAndGet(((JsonObject) reply.result().body()).getInteger("cancelled"));
+        } else {
+          logger.warn("Unable to cancel the schedules of node " + node + ": " + reply.cause().getMessage());
+        }
+        if (remaining.decrementAndGet() == 0) handler.reply(new JsonObject().put("cancelled", cancelled.get()));
+      });
+    }
+  }
+
+  private JsonObject cancelMatching(ScheduleIndex.Query query) {
+
+    // Those still waiting to be restored are released along with the armed ones
+    JsonArray ids = new JsonArray(new ArrayList<>(scheduleIndex.matching(query)));
+    if (pending != null) pending.selected(query).forEach(ids::add);
+    int cancelled = 0;
+    for (Object result : cancelAll(ids)) {
+      if (((JsonObject) result).getBoolean("cancelled")) cancelled++;
+    }
+    return new JsonObject().put("cancelled", cancelled);
+  }
+
+  private void listLocal(ScheduleIndex.Query query, Message<Object> handler) {
+
+    long now = planningClock.millis();
+
+    // Those still waiting to be restored are listed from their requests, read from a copy as the
+    // pending schedules change on this event loop meanwhile
+    PendingSchedules waiting = pending != null ? pending.copy() : null;
+
+    context.executeBlocking(() -> {
+      JsonObject armed = scheduleIndex.list(query, now);
+      if (waiting == null) return armed;
+
+      NavigableSet<String> selected = waiting.selected(query);
+      if (selected.isEmpty()) return armed;
+
+      Set<String> after = query.after != null ? selected.tailSet(query.after, false) : selected;
+      JsonObject unrestored = ScheduleIndex.page(after, id -> scheduleIndex.get(id) == null ? unrestored(id, waiting.get(id)) : null, query, now);
+      return ScheduleIndex.merge(Arrays.asList(armed, unrestored), query.limit);
+    }, false).onComplete(page -> {
+      if (page.succeeded()) {
+        handler.reply(page.result());
+      } else {
+        handler.fail(-1, page.cause().getMessage());
+      }
+    });
+  }
+
+  private void schedule(Message<Object> handler, JsonObject message) {
+
+    CronSchedule schedule;
+    try {
+      schedule = prepare(message);
+    } catch (IllegalArgumentException iae) {
+      handler.fail(-1, iae.getMessage());
+      return;
+    }
+
+    if (!reserve(schedule.id, message)) {
+    	handler.fail(1, "cron_id alredy exists: " + schedule.id);
+    	return;
+    }
+
+    engine.schedule(schedule);
+    scheduleIndex.add(schedule);
+    remember(schedule.id, message);
+    handler.reply(schedule.id);
+  }
+
+  /**
+   * Puts the fields of the message over those of the schedule with its cron_id, a null removing
+   * one, and swaps the schedule for the result in one go: the id is never free, and the previous
+   * schedule is disarmed before the new one is armed, so no fire of the previous schedule follows.
+   * The new schedule keeps the fire count and the last latency and error, and its last fire too when
+   * its expression and time zone are unchanged.
+   */
+  private void update(Message<Object> handler, JsonObject changes) {
+
+    String id = changes.getString("cron_id");
+    JsonObject current = registry.get(id);
+    boolean restoring = current == null && pending != null && (current = pending.get(id)) != null;
+    if (current == null) {
+      handler.fail(-1, "cron_id not found: " + id);
+      return;
+    }
+
+    JsonObject message = current.copy();
+    changes.forEach(field -> {
+      if (field.getValue() == null) {
+        message.remove(field.getKey());
+      } else {
+        message.put(field.getKey(), field.getValue());
+      }
+    });
+
+    CronSchedule schedule;
+    try {
+      schedule = prepare(message, id);
+    } catch (IllegalArgumentException iae) {
+      handler.fail(-1, iae.getMessage());
+      return;
+    }
+
+    CronSchedule previous = scheduleIndex.get(id);
+    if (previous != null) {
+      previous.replaced = true;
+      schedule.fires = previous.fires;
+      schedule.lastLatencyMillis = previous.lastLatencyMillis;
+      schedule.lastError = previous.lastError;
+      if (schedule.cronExpression.equals(previous.cronExpression) && Objects.equals(schedule.timezoneName, previous.timezoneName)) {
+        schedule.lastPlanned = previous.lastPlanned;
+      }
+    }
+
+    if (restoring) pending.release(id);
+    registry.put(id, message);
+    engine.cancel(id);
+    engine.schedule(schedule);
+    scheduleIndex.replace(schedule);
+    remember(id, message);
+    handler.reply(id);
+  }
+
+  private JsonArray scheduleAll(JsonArray messages) {
+
+    JsonArray results = new JsonArray();
+    List<CronSchedule> schedules = new ArrayList<>(messages.size());
+
+    for (Object entry : messages) {
       try {
-        if (!message.containsKey("cron_expression"))
-          throw new IllegalArgumentException("Message must contain cron_expression");
+        if (!(entry instanceof JsonObject)) throw new IllegalArgumentException("Message must be a JSON object");
+        CronSchedule schedule = prepare((JsonObject) entry);
+        if (!reserve(schedule.id, (JsonObject) entry)) {
+          throw new IllegalArgumentException("cron_id alredy exists: " + schedule.id);
+        }
+        schedules.add(schedule);
+        remember(schedule.id, (JsonObject) entry);
+        results.add(new JsonObject().put("cron_id", schedule.id));
+      } catch (IllegalArgumentException iae) {
+        results.add(new JsonObject().put("error", iae.getMessage()));
+      }
+    }
 
-        if (!message.containsKey("address"))
-          throw new IllegalArgumentException("Message must contain the address to schedule");
+    engine.scheduleAll(schedules);
+    schedules.forEach(scheduleIndex::add);
+    return results;
+  }
 
-        if (message.containsKey("timezone_name")) {
-          Boolean noneMatch = Arrays.stream(TimeZone.getAvailableIDs())
-            .noneMatch(available -> available.equals(message.getString("timezone_name")));
-          if (noneMatch) throw new IllegalArgumentException("timezone_name " + message.getString("timezone_name") + " is invalid");
+  private void cancel(String id) {
+
+    // A schedule not claimed by its owner yet is only in the cluster-wide map
+    if (release(id) || clusterSchedules != null) forget(id);
+    engine.cancel(id);
+    scheduleIndex.remove(id);
+  }
+
+  private JsonArray cancelAll(JsonArray ids) {
+
+    JsonArray results = new JsonArray();
+    List<String> cancelled = new ArrayList<>(ids.size());
+
+    for (Object entry : ids) {
+      boolean removed = entry instanceof String && release((String) entry);
+      if (removed) cancelled.add((String) entry);
+      if (!removed && entry instanceof String && clusterSchedules != null) forget((String) entry);
+      results.add(new JsonObject().put("cron_id", entry).put("cancelled", removed));
+    }
+
+    engine.cancelAll(cancelled);
+    cancelled.forEach(scheduleIndex::remove);
+    cancelled.forEach(this::forget);
+    return results;
+  }
+
+  /**
+   * Relays a request to the node that owns it, and its reply or failure back to the sender.
+   */
+  private void forward(Message<Object> handler, String address, Object body) {
+
+    vertx.eventBus().request(address, body, reply -> {
+      if (reply.succeeded()) {
+        handler.reply(reply.result().body());
+      } else if (reply.cause() instanceof ReplyException) {
+        handler.fail(((ReplyException) reply.cause()).failureCode(), reply.cause().getMessage());
+      } else {
+        handler.fail(-1, reply.cause().getMessage());
+      }
+    });
+  }
+
+  /**
+   * Splits a batch by the node owning each entry, and replies with the results in the order of the
+   * batch once every node has answered. Entries without an id are handled locally.
+   */
+  private void forwardAll(Message<Object> handler, JsonArray entries, Function<Object, String> idOf, String suffix, Function<JsonArray, JsonArray> local) {
+
+    Map<String, List<Integer>> owners = new LinkedHashMap<>();
+    for (int index = 0; index < entries.size(); index++) {
+      String id = idOf.apply(entries.getValue(index));
+      String owner = id == null ? membership.nodeId() : membership.owner(id);
+      owners.computeIfAbsent(owner, key -> new ArrayList<>()).add(index);
+    }
+
+    if (owners.isEmpty()) {
+      handler.reply(new JsonArray());
+      return;
+    }
+
+    Object[] results = new Object[entries.size()];
+    AtomicInteger remaining = new AtomicInteger(owners.size());
+
+    owners.forEach((owner, indexes) -> {
+
+      JsonArray group = new JsonArray();
+      indexes.forEach(index -> group.add(entries.getValue(index)));
+
+      Handler<JsonArray> collect = groupResults -> {
+        for (int i = 0; i < indexes.size(); i++) {
+          results[indexes.get(i)] = groupResults.getValue(i);
         }
+        if (remaining.decrementAndGet() == 0) handler.reply(new JsonArray(Arrays.asList(results)));
+      };
 
-        if (message.containsKey("action")) {
-          String action = message.getString("action");
-          if (!(action.equals("send") || action.equals("publish"))) {
-            throw new IllegalArgumentException("action must be 'send' or 'publish'");
-          }
+      if (owner.equals(membership.nodeId())) {
+        collect.handle(local.apply(group));
+        return;
+      }
+
+      vertx.eventBus().request(nodeAddress(owner) + suffix, group, reply -> {
+        if (reply.succeeded()) {
+          collect.handle((JsonArray) reply.result().body());
+        } else {
+          JsonArray failed = new JsonArray();
+          indexes.forEach(index -> failed.add(new JsonObject().put("error", reply.cause().getMessage())));
+          collect.handle(failed);
         }
+      });
+    });
+  }
+
+  /**
+   * Hands off the schedules this node no longer owns and claims the ones it now owns.
+   */
+  private void rebalance() {
+
+    if (!claiming) return;
+
+    List<String> handedOff = new ArrayList<>();
+    for (Object id : registry.getDelegate().keySet()) {
+      if (!membership.owns((String) id)) handedOff.add((String) id);
+    }
+    handedOff.forEach(registry::remove);
+    engine.cancelAll(handedOff);
+    handedOff.forEach(scheduleIndex::remove);
+
+    clusterSchedules.entries().onComplete(entries -> {
+      if (entries.failed()) {
+        logger.error("Unable to read the cluster schedules", entries.cause());
+        return;
+      }
+
+      Map<String, JsonObject> owned = new LinkedHashMap<>();
+      entries.result().forEach((id, message) -> {
+        if (membership.owns(id) && !registry.containsKey(id)) owned.put(id, message);
+      });
+
+      int claimed = restore(owned, -1);
+      logger.info("Scheduler node " + membership.nodeId() + " of " + membership.size() + " handed off " + handedOff.size() + " and claimed " + claimed + " schedules");
+    });
+  }
+
+  private String nodeAddress(String nodeId) {
+    return addressBase + ".node." + nodeId;
+  }
+
+  @Override
+  public void stop(Promise<Void> stopFuture) throws Exception {
+
+    if (engine != null) engine.stop();
+    if (leases != null) leases.stop();
+    if (dispatcher != null) dispatcher.close();
+    metrics.close();
+
+    if (membership != null) {
+      membership.stop();
+      registry.close();
+      vertx.sharedData().getLocalMap(nodeAddress(nodeId) + ".cron.ids.index").close();
+    }
+
+    if (store == null) {
+      stopFuture.complete();
+      return;
+    }
+
+    context.<Void>executeBlocking(() -> {
+      store.close();
+      return null;
+    }, true).onComplete(stopFuture);
+  }
+
+  private ScheduleStore createStore(JsonObject storeConfig) throws ReflectiveOperationException {
+
+    String type = storeConfig.getString("type", "log");
+    if (type.equals("log")) return new AppendLogScheduleStore(storeConfig);
+    if (type.equals("snapshot")) return new SnapshotScheduleStore(storeConfig);
+
+    return (ScheduleStore) Class.forName(type).getConstructor(JsonObject.class).newInstance(storeConfig);
+  }
+
+  /**
+   * Schedules the requests read from the store or the cluster. Requests that are no longer valid are
+   * logged and dropped.
+   *
+   * @param since when the schedules were last known to be running, or -1 if unknown; the fires
+   *              planned since then were missed, and are handled by each schedule's misfire policy
+   */
+  private int restore(Map<String, JsonObject> stored, long since) {
+
+    List<CronSchedule> schedules = new ArrayList<>(stored.size());
+    stored.forEach((id, message) -> {
+      try {
+        CronSchedule schedule = prepare(message, id);
+        if (registry.putIfAbsent(id, message) == null) schedules.add(schedule);
       } catch (IllegalArgumentException iae) {
-        handler.fail(-1, iae.getMessage());
+        logger.warn("Dropping stored schedule " + id + ": " + iae.getMessage());
+        forget(id);
+      }
+    });
+
+    engine.scheduleAll(schedules);
+    schedules.forEach(scheduleIndex::add);
+
+    if (since > 0) {
+      for (CronSchedule schedule : schedules) {
+        long now = planningClock.millis() - schedule.offsetMillis;
+        long missed = schedule.plan.nextFireAfter(since);
+        if (missed >= 0 && missed <= now) misfire(schedule, since, now);
+      }
+    }
+    return schedules.size();
+  }
+
+  private void restorePending(long timerId, long horizon) {
+
+    int restored = restore(pending.take(planningClock.millis() + horizon), storeWritten);
+    if (restored > 0) logger.debug("Restored " + restored + " schedules");
+
+    if (pending.size() == 0) {
+      vertx.cancelTimer(timerId);
+      pending = null;
+    }
+  }
+
+  /**
+   * Claims the id for a new schedule.
+   *
+   * @return false if the id is taken, either by a running schedule or by one still waiting to be
+   * restored
+   */
+  private boolean reserve(String id, JsonObject message) {
+    if (pending != null && pending.contains(id)) return false;
+    return registry.putIfAbsent(id, message) == null;
+  }
+
+  /**
+   * @return true if there was a schedule with the id
+   */
+  private boolean release(String id) {
+    return registry.remove(id) != null || (pending != null && pending.release(id));
+  }
+
+  /**
+   * Records an accepted schedule request with the store and the cluster, if any.
+   */
+  private void remember(String id, JsonObject message) {
+    if (store != null) store.put(id, message);
+    if (clusterSchedules != null) clusterSchedules.put(id, message);
+  }
+
+  private void forget(String id) {
+    if (store != null) store.remove(id);
+    if (clusterSchedules != null) clusterSchedules.remove(id);
+  }
+
+  private void storeTask(StoreTask task) {
+
+    context.<Void>executeBlocking(() -> {
+      task.run(store);
+      return null;
+    }, true).onComplete(done -> {
+      if (done.failed()) logger.error("Unable to write the schedule store", done.cause());
+    });
+  }
+
+  private interface StoreTask {
+    void run(ScheduleStore store) throws IOException;
+  }
+
+  /**
+   * Validates a schedule request and assigns its id.
+   *
+   * @throws IllegalArgumentException with the reason the request was rejected
+   */
+  private CronSchedule prepare(JsonObject message) {
+    return prepare(message, message.containsKey("cron_id") ? message.getString("cron_id") : UUID.randomUUID().toString());
+  }
+
+  private CronSchedule prepare(JsonObject message, String id) {
+
+    if (!message.containsKey("cron_expression"))
+      throw new IllegalArgumentException("Message must contain cron_expression");
+
+    if (!message.containsKey("address"))
+      throw new IllegalArgumentException("Message must contain the address to schedule");
+
+    if (message.containsKey("timezone_name") && !TimeZones.isValid(message.getString("timezone_name"))) {
+      throw new IllegalArgumentException("timezone_name " + message.getString("timezone_name") + " is invalid");
+    }
+
+    if (message.containsKey("action")) {
+      String action = message.getString("action");
+      if (!(action.equals("send") || action.equals("publish"))) {
+        throw new IllegalArgumentException("action must be 'send' or 'publish'");
+      }
+    }
+
+    if (message.containsKey("misfire_policy")) {
+      String policy = message.getString("misfire_policy");
+      if (!(policy.equals("fire_once_now") || policy.equals("fire_all") || policy.equals("skip"))) {
+        throw new IllegalArgumentException("misfire_policy must be 'fire_once_now', 'fire_all' or 'skip'");
+      }
+    }
+
+    if (message.containsKey("overlap_policy")) {
+      String policy = message.getString("overlap_policy");
+      if (!(policy.equals("skip") || policy.equals("queue") || policy.equals("fire"))) {
+        throw new IllegalArgumentException("overlap_policy must be 'skip', 'queue' or 'fire'");
+      }
+    }
+
+    if (message.containsKey("tags")) {
+      Object tags = message.getValue("tags");
+      if (!(tags instanceof JsonArray) || ((JsonArray) tags).stream().anyMatch(tag -> !(tag instanceof String))) {
+        throw new IllegalArgumentException("tags must be an array of strings");
+      }
+    }
+
+    if (message.containsKey("group") && !(message.getValue("group") instanceof String)) {
+      throw new IllegalArgumentException("group must be a string");
+    }
+
+    for (String key : Arrays.asList("misfire_threshold_ms", "jitter_ms", "max_in_flight", "max_queued", "send_timeout_ms")) {
+      if (!message.containsKey(key)) continue;
+      Object value = message.getValue(key);
+      if (!(value instanceof Number) || ((Number) value).longValue() < 0) {
+        throw new IllegalArgumentException(key + " must be a non-negative number");
+      }
+    }
+
+    // A request cannot wait no time at all for its reply
+    if (message.containsKey("send_timeout_ms") && message.getLong("send_timeout_ms") == 0) {
+      throw new IllegalArgumentException("send_timeout_ms must be a positive number");
+    }
+
+    CronSchedule schedule;
+    try {
+      schedule = new CronSchedule(id, message, spreadWindow, sendTimeout, encodedMessages != null);
+    } catch (IllegalArgumentException iae) {
+      logger.error("Unable to process cronspec " + message.getString("cron_expression") + " for address " + message.getString("address"), iae);
+      throw iae;
+    }
+
+    if (schedule.plan.nextFireAfter(planningClock.millis()) < 0) {
+      throw new IllegalArgumentException("cronspec " + schedule.cronExpression + " will never fire");
+    }
+
+    if (lookahead > 0) schedule.fireTimes = new FireTimes(schedule.plan, lookahead, this::refill);
+
+    // Encoded now, rather than on the first fire
+    if (schedule.codecName != null) encodedMessages.get(schedule);
+
+    // Request timings are per fire, so only without them can every fire share one reply handler
+    if (schedule.action.equals("send") && metrics == CronMetrics.NOOP) {
+      schedule.replyHandler = reply -> replied(schedule, reply, -1);
+    }
+
+    return schedule;
+  }
+
+  /**
+   * Computes fire times for the lookahead of a schedule on a worker thread, handing them back on the
+   * event loop.
+   */
+  private void refill(CronPlan plan, long after, int count, Consumer<long[]> filled) {
+
+    context.executeBlocking(() -> FireTimes.after(plan, after, count), false)
+      .onSuccess(filled::accept)
+      .onFailure(fault -> logger.error("Unable to compute the fires of cronspec " + plan.cronExpression(), fault));
+  }
+
+  /**
+   * Delivers a fire made by the engine, unless it was missed: planned more than the misfire threshold
+   * ago, or after fires the engine passed over. Fires are never delivered twice; the ones a misfire
+   * already accounted for are dropped.
+   */
+  private void fire(CronSchedule schedule, long plannedMillis) {
+
+    if (plannedMillis <= schedule.lastPlanned) return;
+
+    // Another scheduler with the same schedule leads its shard and fires it
+    if (leases != null && !leases.leads(schedule.id)) {
+      schedule.lastPlanned = plannedMillis;
+      return;
+    }
+
+    // Fires are made offsetMillis after they are planned, so they are only late after that
+    long now = planningClock.millis() - schedule.offsetMillis;
+    long from = schedule.lastPlanned > 0 ? schedule.lastPlanned : plannedMillis - 1;
+    if (now - plannedMillis > threshold(schedule) || schedule.nextFireAfter(from) != plannedMillis) {
+      misfire(schedule, from, now);
+      return;
+    }
+
+    schedule.lastPlanned = plannedMillis;
+    dispatch(schedule, plannedMillis, null);
+  }
+
+  /**
+   * Handles every fire planned after from and due by now, the latest of which may still be on time,
+   * according to the schedule's misfire policy:
+   * <pre>
+   * fire_once_now  deliver once, for all of them
+   * fire_all       deliver once, listing all of them in the cron_planned header
+   * skip           deliver only the latest, and only if it is on time
+   * </pre>
+   */
+  private void misfire(CronSchedule schedule, long from, long now) {
+
+    StringBuilder planned = schedule.misfirePolicy.equals("fire_all") ? new StringBuilder() : null;
+    int fires = 0;
+    long latest = -1;
+    for (long next = schedule.plan.nextFireAfter(from); next >= 0 && next <= now; next = schedule.plan.nextFireAfter(next)) {
+      if (fires == MAX_MISFIRES) {
+        // Too many to list; skip ahead to the latest
+        latest = lastFire(schedule.plan, latest, now);
+        break;
+      }
+      latest = next;
+      fires++;
+      if (planned != null) planned.append(planned.length() == 0 ? "" : ",").append(next);
+    }
+    if (latest < 0) return;
+
+    schedule.lastPlanned = latest;
+    boolean onTime = now - latest <= threshold(schedule);
+    int missed = onTime ? fires - 1 : fires;
+    if (missed == 0) {
+      dispatch(schedule, latest, null);
+      return;
+    }
+
+    metrics.misfired(schedule.address, missed);
+    logger.debug("Schedule " + schedule.id + " missed " + missed + " fires, handling them with " + schedule.misfirePolicy);
+
+    if (schedule.misfirePolicy.equals("fire_all")) {
+      dispatch(schedule, latest, new DeliveryOptions()
+        .addHeader("cron_misfires", String.valueOf(missed))
+        .addHeader("cron_planned", planned.toString()));
+    } else if (schedule.misfirePolicy.equals("fire_once_now") || onTime) {
+      dispatch(schedule, latest, null);
+    }
+  }
+
+  /**
+   * @return the last fire of the plan after from and no later than until, found by looking back from
+   * until over doubling spans rather than stepping through every fire since from
+   */
+  private static long lastFire(CronPlan plan, long from, long until) {
+
+    for (long span = 1000; ; span *= 2) {
+      long start = Math.max(until - span, from);
+      long next = plan.nextFireAfter(start);
+      if (next >= 0 && next <= until) {
+        long last = next;
+        while ((next = plan.nextFireAfter(last)) >= 0 && next <= until) last = next;
+        return last;
+      }
+      if (start == from) return from;
+    }
+  }
+
+  private long threshold(CronSchedule schedule) {
+    return schedule.misfireThresholdMillis >= 0 ? schedule.misfireThresholdMillis : misfireThreshold;
+  }
+
+  private void dispatch(CronSchedule schedule, long plannedMillis, DeliveryOptions options) {
+
+    fired++;
+    schedule.fires++;
+    // Fires with headers of their own, or counted against in-flight limits, are never batched
+    if (batchWindow > 0 && options == null && !inFlight.limits(schedule)) {
+      batch(schedule, plannedMillis);
+      return;
+    }
+
+    if (dispatcher == null) {
+      deliver(schedule, plannedMillis, options);
+    } else {
+      dispatcher.dispatch(schedule, () -> deliver(schedule, plannedMillis, options));
+    }
+  }
+
+  /**
+   * Adds a fire to the batch of its address, opening one that is delivered when the batch window
+   * closes or it is full.
+   */
+  private void batch(CronSchedule schedule, long plannedMillis) {
+
+    String key = FireBatch.key(schedule);
+    FireBatch batch = batches.get(key);
+    if (batch == null) {
+      FireBatch opened = new FireBatch(schedule);
+      batches.put(key, opened);
+      if (scheduler != null) {
+        scheduler.scheduleDirect(() -> flush(key, opened), batchWindow, TimeUnit.MILLISECONDS);
+      } else {
+        vertx.setTimer(batchWindow, id -> flush(key, opened));
+      }
+      batch = opened;
+    }
+
+    batch.add(schedule, plannedMillis);
+    if (batch.size() >= batchMaxSize) flush(key, batch);
+  }
+
+  private void flush(String key, FireBatch batch) {
+
+    // Already delivered when it filled up
+    if (batches.get(key) != batch) return;
+    batches.remove(key);
+
+    batch.retain(this::armed);
+    if (batch.size() == 0) return;
+
+    if (dispatcher == null) {
+      deliver(batch);
+    } else {
+      dispatcher.dispatch(batch.schedules.get(0), () -> deliver(batch));
+    }
+  }
+
+  /**
+   * Sends or publishes a batch of fires as one message. The reply to a sent batch is forwarded to
+   * the result_address of each schedule that has one: the entry for its fire if the reply is an
+   * array with an entry per fire, otherwise the whole reply.
+   */
+  private void deliver(FireBatch batch) {
+
+    long now = planningClock.millis();
+    for (int index = 0; index < batch.size(); index++) {
+      CronSchedule schedule = batch.schedules.get(index);
+      schedule.lastLatencyMillis = now - schedule.offsetMillis - batch.planned.get(index);
+      metrics.fired(batch.address, schedule.lastLatencyMillis);
+    }
+
+    io.vertx.core.eventbus.EventBus eb = vertx.getDelegate().eventBus();
+    DeliveryOptions options = new DeliveryOptions().setLocalOnly(batch.localOnly);
+    if (!batch.action.equals("send")) {
+      eb.publish(batch.address, batch.message(), options);
+      return;
+    }
+
+    long sent = System.nanoTime();
+    eb.request(batch.address, batch.message(), options.setSendTimeout(batch.sendTimeout()), reply -> {
+      metrics.replied(batch.address, System.nanoTime() - sent, reply.succeeded());
+      if (reply.failed()) {
+        logger.error("Batch of " + batch.size() + " fires to " + batch.address + " failed.", reply.cause());
+        batch.schedules.forEach(schedule -> schedule.lastError = reply.cause().getMessage());
+        return;
+      }
+
+      Object body = reply.result().body();
+      boolean perFire = body instanceof JsonArray && ((JsonArray) body).size() == batch.size();
+      for (int index = 0; index < batch.size(); index++) {
+        CronSchedule schedule = batch.schedules.get(index);
+        if (schedule.resultAddress == null) continue;
+        eb.send(schedule.resultAddress, perFire ? ((JsonArray) body).getValue(index) : body);
+        metrics.forwarded(batch.address, System.nanoTime() - sent);
+      }
+    });
+  }
+
+  /**
+   * Sends or publishes a fire. Runs on the event loop, or on the thread the dispatcher chose.
+   */
+  private void deliver(CronSchedule schedule, long plannedMillis, DeliveryOptions options) {
+
+    DeliveryOptions deliveryOptions = options != null ? schedule.options(options, sendTimeout) : schedule.deliveryOptions;
+    if (!schedule.action.equals("send")) {
+      schedule.lastLatencyMillis = planningClock.millis() - schedule.offsetMillis - plannedMillis;
+      metrics.fired(schedule.address, schedule.lastLatencyMillis);
+      vertx.getDelegate().eventBus().publish(schedule.address, body(schedule), deliveryOptions);
+      return;
+    }
+
+    if (inFlight.limits(schedule) && !inFlight.tryAcquire(schedule)) {
+      if (schedule.overlapPolicy.equals("fire")) {
+        inFlight.acquire(schedule);
+      } else if (schedule.overlapPolicy.equals("queue") && inFlight.enqueue(schedule, plannedMillis, deliveryOptions)) {
+        metrics.queued(schedule.address);
+        return;
+      } else {
+        metrics.dropped(schedule.address);
         return;
       }
+    }
+
+    send(schedule, plannedMillis, deliveryOptions);
+  }
 
-      String cronExpression = message.getString("cron_expression");
-      String timezoneName = message.getString("timezone_name");
-      String scheduledAddress = message.getString("address");
-      Object scheduledMessage = message.getValue("message");
-      String action = message.getString("action", "send");
-      String resultAddress = message.getString("result_address");
-      Boolean localOnly = message.getBoolean("local_only", false);
+  /**
+   * Sends the request of a fire already counted as in flight, if the schedule is limited, and sends
+   * the fires queued for the address once it completes.
+   */
+  private void send(CronSchedule schedule, long plannedMillis, DeliveryOptions deliveryOptions) {
+
+    schedule.lastLatencyMillis = planningClock.millis() - schedule.offsetMillis - plannedMillis;
+    metrics.fired(schedule.address, schedule.lastLatencyMillis);
+
+    Handler<AsyncResult<io.vertx.core.eventbus.Message<Object>>> replyHandler = schedule.replyHandler;
+    if (replyHandler == null) {
+      long sent = System.nanoTime();
+      replyHandler = reply -> replied(schedule, reply, sent);
+    }
+    vertx.getDelegate().eventBus().request(schedule.address, body(schedule), deliveryOptions, replyHandler);
+  }
+
+  /**
+   * @return the message of the schedule, or its encoding when sent with the encoded message codec
+   */
+  private Object body(CronSchedule schedule) {
+    return schedule.codecName != null ? encodedMessages.get(schedule) : schedule.message;
+  }
 
-      SharedData sd = vertx.sharedData();
-      String id;
-      if (message.containsKey("cron_id")) {
-    	  id = message.getString("cron_id");
+  /**
+   * @param sent when the request was sent, by {@link System#nanoTime()}, or -1 if not timed
+   */
+  private void replied(CronSchedule schedule, AsyncResult<io.vertx.core.eventbus.Message<Object>> reply, long sent) {
+
+    if (sent >= 0) metrics.replied(schedule.address, System.nanoTime() - sent, reply.succeeded());
+    if (reply.failed()) schedule.lastError = reply.cause().getMessage();
+    if (schedule.resultAddress != null) {
+      if (reply.succeeded()) {
+        vertx.getDelegate().eventBus().send(schedule.resultAddress, reply.result().body());
+        if (sent >= 0) metrics.forwarded(schedule.address, System.nanoTime() - sent);
+      } else {
+        logger.error("Message to " + schedule.resultAddress + " failed.", reply.cause());
+      }
+    }
+
+    if (inFlight.limits(schedule)) {
+      inFlight.release(schedule);
+      sendQueued(schedule.address);
+    }
+  }
+
+  /**
+   * @return false once the schedule has been cancelled, or updated into another
+   */
+  private boolean armed(CronSchedule schedule) {
+    return !schedule.replaced && registry.containsKey(schedule.id);
+  }
+
+  private void sendQueued(String address) {
+
+    InFlightLimits.Queued queued;
+    while ((queued = inFlight.poll(address)) != null) {
+      if (armed(queued.schedule)) {
+        send(queued.schedule, queued.plannedMillis, queued.options);
       } else {
-    	  id = UUID.randomUUID().toString();
-      }
-
-      LocalMap<String, JsonObject> map = sd.getLocalMap(addressBase + ".cron.ids");
-      if (map.putIfAbsent(id, message)!=null) {
-    	  handler.fail(1, "cron_id alredy exists: " + id);
-    	  return;
-      }
-
-      Scheduler scheduler = RxHelper.scheduler(vertx);
-      CronObservable.cronspec(scheduler, cronExpression, timezoneName)
-        .takeWhile(timestamped -> {
-          return map.get(id) != null;
-        })
-        .subscribe(
-          timestamped -> {
-            DeliveryOptions deliveryOptions = new DeliveryOptions().setLocalOnly(localOnly);
-            if (action.equals("send")) {
-              eb.request(scheduledAddress, scheduledMessage, deliveryOptions, scheduledAddressHandler -> {
-                if (resultAddress != null) {
-                  if (scheduledAddressHandler.succeeded()) {
-                    eb.send(resultAddress, scheduledAddressHandler.result().body());
-                  } else {
-                    if (scheduledAddressHandler.failed()) {
-                      logger.error("Message to " + resultAddress + " failed.", scheduledAddressHandler.cause());
-                    }
-                  }
-                }
-              });
-            } else {
-              eb.publish(scheduledAddress, scheduledMessage, deliveryOptions);
-            }
-          },
-          fault -> {
-            logger.error("Unable to process cronspec " + cronExpression + " for address " + scheduledAddress, fault);
-            handler.fail(-1, fault.getMessage());
-          }
-        );
-
-      handler.reply(id);
-
-    });
-
-    startFuture.complete();
+        // Cancelled or updated while it waited
+        inFlight.release(queued.schedule);
+      }
+    }
   }
 
 }
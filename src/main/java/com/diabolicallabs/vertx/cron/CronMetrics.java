@@ -0,0 +1,76 @@
+package com.diabolicallabs.vertx.cron;
+
+/**
+ * Records what a {@link CronEventSchedulerVertical} does with its schedules. Called on the fire
+ * path, so implementations must not block and should not allocate. With a dispatch other than
+ * "event_loop", the methods are called from several threads at once.
+ */
+interface CronMetrics {
+
+  CronMetrics NOOP = new CronMetrics() {
+
+    @Override
+    public void fired(String address, long latenessMillis) {
+    }
+
+    @Override
+    public void misfired(String address, int fires) {
+    }
+
+    @Override
+    public void dropped(String address) {
+    }
+
+    @Override
+    public void queued(String address) {
+    }
+
+    @Override
+    public void replied(String address, long nanos, boolean succeeded) {
+    }
+
+    @Override
+    public void forwarded(String address, long nanos) {
+    }
+
+    @Override
+    public void close() {
+    }
+  };
+
+  /**
+   * A schedule for the address fired, the given time after it was planned to.
+   */
+  void fired(String address, long latenessMillis);
+
+  /**
+   * Fires for the address were missed, and handled by the schedule's misfire policy.
+   */
+  void misfired(String address, int fires);
+
+  /**
+   * A fire for the address was dropped, because too many requests to it were in flight.
+   */
+  void dropped(String address);
+
+  /**
+   * A fire for the address was queued until fewer requests to it are in flight.
+   */
+  void queued(String address);
+
+  /**
+   * The address replied to a scheduled request, or failed to, after the given time.
+   */
+  void replied(String address, long nanos, boolean succeeded);
+
+  /**
+   * The reply from the address was forwarded to the result address, the given time after the fire.
+   */
+  void forwarded(String address, long nanos);
+
+  /**
+   * The vertical stopped, and records nothing more.
+   */
+  void close();
+
+}
@@ -3,14 +3,14 @@ package com.diabolicallabs.vertx.cron;
 import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import io.reactivex.schedulers.Timed;
-import org.quartz.CronExpression;
 
-import java.text.ParseException;
-import java.util.Arrays;
-import java.util.Date;
-import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
 
+/**
+ * Emits a {@link Timed} for every fire of a cron expression. The value is the epoch millisecond the
+ * fire was planned for, and the time is when it was emitted, so the difference is how late it was.
+ */
 public class CronObservable {
 
   private CronObservable() {
@@ -23,30 +23,118 @@ public class CronObservable {
 
   public static Observable<Timed<Long>> cronspec(Scheduler scheduler, String cronspec, String timeZoneName) {
 
-    if (timeZoneName != null) {
-      Boolean noneMatch = Arrays.stream(TimeZone.getAvailableIDs()).noneMatch(available -> available.equals(timeZoneName));
-      if (noneMatch) throw new IllegalArgumentException("timeZoneName " + timeZoneName + " is invalid");
+    return CronObservable.cronspec(scheduler, cronspec, timeZoneName, CronClock.SYSTEM);
+  }
+
+  /**
+   * Plans the fires by the clock rather than the wall clock, and stamps them with its time. With the
+   * clock of a {@code TestScheduler} and the scheduler itself, fires follow simulated time.
+   */
+  public static Observable<Timed<Long>> cronspec(Scheduler scheduler, String cronspec, String timeZoneName, CronClock clock) {
+
+    return CronObservable.cronspec(scheduler, cronspec, timeZoneName, clock, 0);
+  }
+
+  /**
+   * Fires each planned time offsetMillis late, as if the schedule ran on a clock that is behind by
+   * that much. The value emitted is still the planned time.
+   */
+  static Observable<Timed<Long>> cronspec(Scheduler scheduler, String cronspec, String timeZoneName, CronClock clock, long offsetMillis) {
+
+    return CronObservable.planned(scheduler, cronspec, timeZoneName, clock, offsetMillis)
+      .map(next -> new Timed<>(next, clock.millis(), TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * Like {@link #cronspec(Scheduler, String, String, CronClock, long)}, but emits just the planned
+   * times, for callers that do not need to know when each was emitted.
+   */
+  static Observable<Long> planned(Scheduler scheduler, String cronspec, String timeZoneName, CronClock clock, long offsetMillis) {
+
+    if (timeZoneName != null && !TimeZones.isValid(timeZoneName)) {
+      throw new IllegalArgumentException("timeZoneName " + timeZoneName + " is invalid");
     }
 
-    return Observable.just(cronspec)
-      .flatMap(_cronspec -> {
-        CronExpression cron;
-        try {
-          cron = new CronExpression(_cronspec);
-          if (timeZoneName != null) {
-            cron.setTimeZone(TimeZone.getTimeZone(timeZoneName));
-          }
-        } catch (ParseException e) {
-          throw new IllegalArgumentException("Invalid cronspec " + _cronspec, e);
-        }
-
-        return Observable.just(cron)
-          .map(cronExpression -> cronExpression.getNextValidTimeAfter(new Date(new Date().getTime() + 500)))
-          .map(nextRunDate -> nextRunDate.getTime() - new Date().getTime())
-          .flatMap(delay -> Observable.timer(delay, TimeUnit.MILLISECONDS, scheduler))
-          .timestamp()
-          .repeat();
-      });
+    return Observable.defer(() -> {
+      CronPlan plan = CronPlanCache.shared().get(cronspec, timeZoneName);
+      return CronObservable.planned(scheduler, plan::nextFireAfter, cronspec, clock, offsetMillis);
+    });
+  }
+
+  /**
+   * Like {@link #planned(Scheduler, String, String, CronClock, long)}, but takes each fire time from
+   * nextFire, which returns the first fire after the instant given, or -1 if there is none.
+   */
+  static Observable<Long> planned(Scheduler scheduler, LongUnaryOperator nextFire, String cronspec, CronClock clock, long offsetMillis) {
+
+    return Observable.fromCallable(() -> {
+        long next = nextFire.applyAsLong(clock.millis() - offsetMillis + 500);
+        if (next < 0) throw new IllegalStateException("cronspec " + cronspec + " will never fire again");
+        return next;
+      })
+      .flatMap(nextRunTime -> Observable.timer(nextRunTime + offsetMillis - clock.millis(), TimeUnit.MILLISECONDS, scheduler).map(tick -> nextRunTime))
+      .repeat();
+  }
+
+  public static Observable<Timed<Long>> precise(Scheduler scheduler, String cronspec) {
+
+    return CronObservable.precise(scheduler, cronspec, null);
+  }
+
+  /**
+   * Like {@link #cronspec(Scheduler, String, String)}, but each fire is planned from the one before
+   * it rather than from the time it actually happened, and delays are measured on a monotonic
+   * clock. Every planned fire is emitted exactly once: a fire that comes due while the previous one
+   * is still being handled, or while the event loop is stalled, is emitted late rather than skipped.
+   */
+  public static Observable<Timed<Long>> precise(Scheduler scheduler, String cronspec, String timeZoneName) {
+
+    return CronObservable.precise(scheduler, cronspec, timeZoneName, CronClock.SYSTEM);
+  }
+
+  /**
+   * Plans and times the fires by the clock, like {@link #cronspec(Scheduler, String, String, CronClock)}.
+   * {@link CronClock#SYSTEM}, and any other {@link CronClock#wall} clock, is read as a monotonic clock.
+   */
+  public static Observable<Timed<Long>> precise(Scheduler scheduler, String cronspec, String timeZoneName, CronClock clock) {
+
+    return CronObservable.precise(scheduler, cronspec, timeZoneName, clock, 0);
+  }
+
+  /**
+   * Fires each planned time offsetMillis late, like {@link #cronspec(Scheduler, String, String, CronClock, long)}.
+   */
+  static Observable<Timed<Long>> precise(Scheduler scheduler, String cronspec, String timeZoneName, CronClock time, long offsetMillis) {
+
+    if (timeZoneName != null && !TimeZones.isValid(timeZoneName)) {
+      throw new IllegalArgumentException("timeZoneName " + timeZoneName + " is invalid");
+    }
+
+    return Observable.defer(() -> {
+      CronPlan plan = CronPlanCache.shared().get(cronspec, timeZoneName);
+      return CronObservable.precise(scheduler, plan::nextFireAfter, cronspec, time, offsetMillis);
+    });
+  }
+
+  /**
+   * Like {@link #precise(Scheduler, String, String, CronClock, long)}, but takes each fire time from
+   * nextFire, as {@link #planned(Scheduler, LongUnaryOperator, String, CronClock, long)} does.
+   */
+  static Observable<Timed<Long>> precise(Scheduler scheduler, LongUnaryOperator nextFire, String cronspec, CronClock time, long offsetMillis) {
+
+    return Observable.defer(() -> {
+      CronClock clock = MonotonicClock.reading(time);
+      long[] planned = {clock.millis() - offsetMillis};
+
+      return Observable.defer(() -> {
+        long next = nextFire.applyAsLong(planned[0]);
+        if (next < 0) throw new IllegalStateException("cronspec " + cronspec + " will never fire again");
+        planned[0] = next;
+
+        return Observable.timer(Math.max(next + offsetMillis - clock.millis(), 0), TimeUnit.MILLISECONDS, scheduler)
+          .map(tick -> new Timed<>(next, clock.millis(), TimeUnit.MILLISECONDS));
+      }).repeat();
+    });
   }
 
 }
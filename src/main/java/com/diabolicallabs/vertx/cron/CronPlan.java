@@ -0,0 +1,424 @@
+package com.diabolicallabs.vertx.cron;
+
+import org.quartz.CronExpression;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cron expression compiled for fast evaluation. The expression is parsed by Quartz, so it accepts
+ * exactly what {@link CronExpression} accepts, and its fields are then held as bit sets. Computing
+ * the next fire time works on epoch millis and does not allocate.
+ *
+ * <p>Expressions using {@code L}, {@code W} or {@code #} are evaluated by Quartz instead.
+ *
+ * <p>Plans are immutable and can be shared between schedules, see {@link CronPlanCache}.
+ */
+public final class CronPlan {
+
+  private static final ConcurrentMap<ZoneId, Zone> ZONES = new ConcurrentHashMap<>();
+
+  private final String cronExpression;
+  private final ZoneId zoneId;
+  private final Zone zone;
+  private final CronExpression fallback;
+
+  private final long seconds;
+  private final long minutes;
+  private final long hours;
+  private final long daysOfMonth;
+  private final long months;
+  private final long daysOfWeek;
+  private final boolean dayOfWeekSpecified;
+  private final BitSet years;
+
+  private CronPlan(String cronExpression, TimeZone timeZone, CronExpression parsed) {
+
+    this.cronExpression = cronExpression;
+    this.zoneId = timeZone.toZoneId();
+    this.zone = ZONES.computeIfAbsent(zoneId, Zone::new);
+
+    long seconds = 0, minutes = 0, hours = 0, daysOfMonth = 0, months = 0, daysOfWeek = 0;
+    boolean dayOfWeekSpecified = false;
+    boolean special = false;
+    BitSet years = null;
+
+    for (String line : parsed.getExpressionSummary().split("\n")) {
+      int colon = line.indexOf(':');
+      if (colon < 0) continue;
+      String name = line.substring(0, colon).trim();
+      String value = line.substring(colon + 1).trim();
+      switch (name) {
+        case "seconds":
+          seconds = mask(value, 0, 59);
+          break;
+        case "minutes":
+          minutes = mask(value, 0, 59);
+          break;
+        case "hours":
+          hours = mask(value, 0, 23);
+          break;
+        case "daysOfMonth":
+          daysOfMonth = mask(value, 1, 31);
+          break;
+        case "months":
+          months = mask(value, 1, 12);
+          break;
+        case "daysOfWeek":
+          dayOfWeekSpecified = !value.equals("?");
+          daysOfWeek = mask(value, 1, 7);
+          break;
+        case "years":
+          if (!value.equals("*")) {
+            years = new BitSet();
+            for (String year : value.split(",")) years.set(Integer.parseInt(year.trim()));
+          }
+          break;
+        case "lastdayOfWeek":
+        case "nearestWeekday":
+        case "lastdayOfMonth":
+          special |= Boolean.parseBoolean(value);
+          break;
+        case "NthDayOfWeek":
+          special |= !value.equals("0");
+          break;
+        default:
+          break;
+      }
+    }
+
+    this.seconds = seconds;
+    this.minutes = minutes;
+    this.hours = hours;
+    this.daysOfMonth = daysOfMonth;
+    this.months = months;
+    this.daysOfWeek = daysOfWeek;
+    this.dayOfWeekSpecified = dayOfWeekSpecified;
+    this.years = years;
+    this.fallback = special ? parsed : null;
+  }
+
+  /**
+   * @param timeZoneName the time zone the expression is interpreted in, or null for the default
+   * @throws IllegalArgumentException if the expression is not a valid cron expression
+   */
+  public static CronPlan compile(String cronExpression, String timeZoneName) {
+
+    ZoneId zoneId = timeZoneName == null ? null : TimeZones.zoneId(timeZoneName);
+    TimeZone timeZone = zoneId == null ? TimeZone.getDefault() : TimeZone.getTimeZone(zoneId);
+    try {
+      CronExpression parsed = new CronExpression(cronExpression);
+      parsed.setTimeZone(timeZone);
+      return new CronPlan(cronExpression, timeZone, parsed);
+    } catch (ParseException | RuntimeException e) {
+      throw new IllegalArgumentException("Invalid cronspec " + cronExpression, e);
+    }
+  }
+
+  public String cronExpression() {
+    return cronExpression;
+  }
+
+  public ZoneId zone() {
+    return zoneId;
+  }
+
+  /**
+   * Returns the first fire time strictly after the given instant, with the same semantics as
+   * {@link CronExpression#getNextValidTimeAfter(Date)}, or -1 if the expression never fires again.
+   */
+  public long nextFireAfter(long epochMillis) {
+
+    if (fallback != null) {
+      Date next = fallback.getNextValidTimeAfter(new Date(epochMillis));
+      return next == null ? -1 : next.getTime();
+    }
+
+    long start = Math.floorDiv(epochMillis, 1000) + 1;
+    long local = start + zone.offsetAt(start);
+
+    while (true) {
+      local = nextLocal(local);
+      if (local < 0) return -1;
+
+      long instant = zone.resolve(local);
+      if (instant >= start) return instant * 1000;
+
+      // The local time does not exist or has already passed in this zone
+      local++;
+    }
+  }
+
+  /**
+   * Returns the first matching local time, in seconds since the local epoch, at or after the given
+   * local time.
+   */
+  private long nextLocal(long local) {
+
+    long days = Math.floorDiv(local, 86400);
+    int secondOfDay = (int) Math.floorMod(local, 86400);
+    long date = civil(days);
+    int year = (int) (date >> 9);
+    int month = (int) ((date >> 5) & 0xF);
+    int day = (int) (date & 0x1F);
+    int hour = secondOfDay / 3600;
+    int minute = secondOfDay / 60 % 60;
+    int second = secondOfDay % 60;
+
+    while (true) {
+
+      if (year > CronExpression.MAX_YEAR) return -1;
+
+      if (years != null && !years.get(year)) {
+        int nextYear = years.nextSetBit(year);
+        if (nextYear < 0) return -1;
+        year = nextYear;
+        month = 1;
+        day = 1;
+        hour = minute = second = 0;
+        continue;
+      }
+
+      int nextMonth = next(months, month);
+      if (nextMonth < 0) {
+        year++;
+        month = 1;
+        day = 1;
+        hour = minute = second = 0;
+        continue;
+      }
+      if (nextMonth != month) {
+        month = nextMonth;
+        day = 1;
+        hour = minute = second = 0;
+      }
+
+      int nextDay = nextDay(year, month, day);
+      if (nextDay < 0) {
+        month++;
+        if (month > 12) {
+          month = 1;
+          year++;
+        }
+        day = 1;
+        hour = minute = second = 0;
+        continue;
+      }
+      if (nextDay != day) {
+        day = nextDay;
+        hour = minute = second = 0;
+      }
+
+      int nextHour = next(hours, hour);
+      if (nextHour < 0) {
+        day++;
+        hour = minute = second = 0;
+        continue;
+      }
+      if (nextHour != hour) {
+        hour = nextHour;
+        minute = second = 0;
+      }
+
+      int nextMinute = next(minutes, minute);
+      if (nextMinute < 0) {
+        hour++;
+        minute = second = 0;
+        if (hour > 23) {
+          day++;
+          hour = 0;
+        }
+        continue;
+      }
+      if (nextMinute != minute) {
+        minute = nextMinute;
+        second = 0;
+      }
+
+      int nextSecond = next(seconds, second);
+      if (nextSecond < 0) {
+        minute++;
+        second = 0;
+        if (minute > 59) {
+          hour++;
+          minute = 0;
+          if (hour > 23) {
+            day++;
+            hour = 0;
+          }
+        }
+        continue;
+      }
+
+      return days(year, month, day) * 86400 + hour * 3600 + minute * 60 + nextSecond;
+    }
+  }
+
+  private int nextDay(int year, int month, int day) {
+
+    int length = lengthOfMonth(year, month);
+    if (day > length) return -1;
+
+    if (!dayOfWeekSpecified) {
+      int next = next(daysOfMonth, day);
+      return next > length ? -1 : next;
+    }
+
+    // Quartz numbers the days of the week from 1 for Sunday; the epoch was a Thursday
+    int dayOfWeek = (int) Math.floorMod(days(year, month, day) + 4, 7) + 1;
+    for (; day <= length; day++) {
+      if ((daysOfWeek & (1L << dayOfWeek)) != 0) return day;
+      dayOfWeek = dayOfWeek == 7 ? 1 : dayOfWeek + 1;
+    }
+    return -1;
+  }
+
+  private static int next(long mask, int from) {
+
+    if (from > 63) return -1;
+    long remaining = mask & (-1L << from);
+    return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+  }
+
+  private static long mask(String value, int min, int max) {
+
+    if (value.equals("*")) {
+      long mask = 0;
+      for (int i = min; i <= max; i++) mask |= 1L << i;
+      return mask;
+    }
+
+    long mask = 0;
+    if (value.isEmpty() || value.equals("?")) return mask;
+    for (String item : value.split(",")) {
+      int i = Integer.parseInt(item.trim());
+      if (i >= min && i <= max) mask |= 1L << i;
+    }
+    return mask;
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+
+    switch (month) {
+      case 2:
+        return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * Days since the epoch of a proleptic Gregorian date.
+   */
+  private static long days(int year, int month, int day) {
+
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * The proleptic Gregorian date of the given day since the epoch, packed as year, month and day.
+   */
+  private static long civil(long days) {
+
+    long z = days + 719468;
+    long era = Math.floorDiv(z, 146097);
+    long dayOfEra = z - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long mp = (5 * dayOfYear + 2) / 153;
+    long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+    long month = mp < 10 ? mp + 3 : mp - 9;
+    long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    return (year << 9) | (month << 5) | day;
+  }
+
+  /**
+   * The offsets of a time zone, flattened into arrays so they can be looked up without allocating.
+   */
+  private static final class Zone {
+
+    private static final long FIRST = Instant.parse("1900-01-01T00:00:00Z").getEpochSecond();
+    private static final long LAST = Instant.parse("2300-01-01T00:00:00Z").getEpochSecond();
+
+    // offsets[i] applies before transitions[i] and offsets[i + 1] from it
+    private final long[] transitions;
+    private final int[] offsets;
+
+    Zone(ZoneId zoneId) {
+
+      ZoneRules rules = zoneId.getRules();
+      List<ZoneOffsetTransition> found = new ArrayList<>();
+      ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(FIRST));
+      while (transition != null && transition.toEpochSecond() < LAST) {
+        found.add(transition);
+        transition = rules.nextTransition(transition.getInstant());
+      }
+
+      transitions = new long[found.size()];
+      offsets = new int[found.size() + 1];
+      offsets[0] = rules.getOffset(Instant.ofEpochSecond(FIRST)).getTotalSeconds();
+      for (int i = 0; i < found.size(); i++) {
+        transitions[i] = found.get(i).toEpochSecond();
+        offsets[i + 1] = found.get(i).getOffsetAfter().getTotalSeconds();
+      }
+    }
+
+    int offsetAt(long epochSecond) {
+      return offsets[index(epochSecond)];
+    }
+
+    /**
+     * The instant of a local time. Like Quartz, an ambiguous local time resolves to the later
+     * instant; a local time skipped by a transition returns -1.
+     */
+    long resolve(long local) {
+
+      int index = index(local - offsetAt(local));
+      long resolved = -1;
+      for (int i = Math.max(0, index - 1); i <= Math.min(offsets.length - 1, index + 1); i++) {
+        long candidate = local - offsets[i];
+        if (offsetAt(candidate) == offsets[i] && candidate > resolved) resolved = candidate;
+      }
+      return resolved;
+    }
+
+    /**
+     * The number of transitions at or before the instant.
+     */
+    private int index(long epochSecond) {
+
+      int low = 0;
+      int high = transitions.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (transitions[mid] <= epochSecond) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return low;
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.diabolicallabs.vertx.cron;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of {@link CronPlan}s keyed by expression and time zone, so
+ * schedules that share an expression also share its compiled plan.
+ */
+public final class CronPlanCache {
+
+  public static final int DEFAULT_MAX_SIZE = 1024;
+
+  private static final CronPlanCache SHARED = new CronPlanCache(DEFAULT_MAX_SIZE);
+
+  private final Map<String, CronPlan> plans;
+
+  public CronPlanCache(int maxSize) {
+
+    if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+
+    this.plans = new LinkedHashMap<String, CronPlan>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CronPlan> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * The cache used by the scheduler and {@link CronObservable}.
+   */
+  public static CronPlanCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * @param timeZoneName the time zone the expression is interpreted in, or null for the default
+   * @throws IllegalArgumentException if the expression is not a valid cron expression
+   */
+  public CronPlan get(String cronExpression, String timeZoneName) {
+
+    String key = timeZoneName == null ? cronExpression : cronExpression + '\u0000' + timeZoneName;
+    synchronized (plans) {
+      CronPlan plan = plans.get(key);
+      if (plan == null) {
+        plan = CronPlan.compile(cronExpression, timeZoneName);
+        plans.put(key, plan);
+      }
+      return plan;
+    }
+  }
+
+  public int size() {
+    synchronized (plans) {
+      return plans.size();
+    }
+  }
+
+}
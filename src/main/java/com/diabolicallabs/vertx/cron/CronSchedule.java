@@ -0,0 +1,156 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A validated schedule request as held by a {@link CronEngine}.
+ */
+class CronSchedule {
+
+  final String id;
+  final long hash;
+  final JsonObject request;
+  final String cronExpression;
+  final String timezoneName;
+  final String address;
+  final Object message;
+  final String action;
+  final String resultAddress;
+  final boolean localOnly;
+  final String misfirePolicy;
+  final long misfireThresholdMillis;
+  final long offsetMillis;
+  final int maxInFlight;
+  final String overlapPolicy;
+  final int maxQueued;
+  final long sendTimeoutMillis;
+  final List<String> tags;
+  final String group;
+
+  /**
+   * {@link EncodedMessageCodec#NAME} if the message is sent encoded ahead of time, or null.
+   */
+  final String codecName;
+  final CronPlan plan;
+
+  /**
+   * The options of every fire without headers of its own. Shared by fires in flight at the same
+   * time, so never changed once made.
+   */
+  final DeliveryOptions deliveryOptions;
+
+  /**
+   * Handles the replies to the requests of a "send" schedule, when no fire needs a handler of its
+   * own. Set by the vertical before the schedule is armed.
+   */
+  Handler<AsyncResult<Message<Object>>> replyHandler;
+
+  /**
+   * The upcoming fire times computed ahead, or null to compute each from the plan when it is needed.
+   * Set by the vertical before the schedule is armed.
+   */
+  FireTimes fireTimes;
+
+  /**
+   * The last fire handled, delivered or not, or 0 before the first. Only changed on the event loop
+   * of the vertical, but read by {@link ScheduleIndex} from other threads.
+   */
+  volatile long lastPlanned;
+
+  /**
+   * The fires made, how long after its planned time the last one was delivered, or -1 before the
+   * first, and the failure of the last request that failed, or null. Read by {@link ScheduleIndex}.
+   */
+  volatile long fires;
+  volatile long lastLatencyMillis = -1;
+  volatile String lastError;
+
+  /**
+   * Set once an update has put another schedule in the place of this one, so that an engine still
+   * holding it, on another instance sharing the registry, drops it rather than firing it.
+   */
+  volatile boolean replaced;
+
+  /**
+   * The requests of the schedule in flight, and its fires queued behind them, as counted by
+   * {@link InFlightLimits}.
+   */
+  int inFlight;
+  int queued;
+
+  /**
+   * @param spreadWindowMillis       the window fires are spread over when the request has no jitter_ms
+   * @param defaultSendTimeoutMillis the send timeout when the request has no send_timeout_ms
+   * @param encodeMessage            true to send the message encoded ahead of time, if the codec can
+   */
+  CronSchedule(String id, JsonObject request, long spreadWindowMillis, long defaultSendTimeoutMillis, boolean encodeMessage) {
+
+    this.id = id;
+    this.hash = HashRing.hash(id);
+    this.request = request;
+    this.cronExpression = request.getString("cron_expression");
+    this.timezoneName = request.getString("timezone_name");
+    this.address = request.getString("address");
+    this.message = request.getValue("message");
+    this.action = request.getString("action", "send");
+    this.resultAddress = request.getString("result_address");
+    this.localOnly = request.getBoolean("local_only", false);
+    this.misfirePolicy = request.getString("misfire_policy", "fire_once_now");
+    this.misfireThresholdMillis = request.getLong("misfire_threshold_ms", -1L);
+
+    // Only depends on the id, so a schedule keeps its place in the window across restarts and nodes
+    long window = request.getLong("jitter_ms", spreadWindowMillis);
+    this.offsetMillis = window > 0 ? Math.floorMod(hash, window) : 0;
+
+    this.maxInFlight = request.getInteger("max_in_flight", 0);
+    this.overlapPolicy = request.getString("overlap_policy", "skip");
+    this.maxQueued = request.getInteger("max_queued", 10);
+    this.sendTimeoutMillis = request.getLong("send_timeout_ms", -1L);
+    this.tags = tags(request.getJsonArray("tags"));
+    this.group = request.getString("group");
+    this.codecName = encodeMessage && EncodedMessageCodec.encodes(message) ? EncodedMessageCodec.NAME : null;
+    this.plan = CronPlanCache.shared().get(cronExpression, timezoneName);
+    this.deliveryOptions = options(new DeliveryOptions(), defaultSendTimeoutMillis);
+  }
+
+  private static List<String> tags(JsonArray tags) {
+
+    if (tags == null || tags.isEmpty()) return Collections.emptyList();
+
+    List<String> distinct = new ArrayList<>(tags.size());
+    for (Object tag : tags) {
+      if (!distinct.contains(tag)) distinct.add((String) tag);
+    }
+    return distinct;
+  }
+
+  /**
+   * Returns the first fire time strictly after the given instant, taken from the fire times computed
+   * ahead when the schedule has them.
+   */
+  long nextFireAfter(long epochMillis) {
+    return fireTimes != null ? fireTimes.nextFireAfter(epochMillis) : plan.nextFireAfter(epochMillis);
+  }
+
+  /**
+   * Sets the options every fire of the schedule is delivered with.
+   *
+   * @return the options
+   */
+  DeliveryOptions options(DeliveryOptions options, long defaultSendTimeoutMillis) {
+    return options
+      .setLocalOnly(localOnly)
+      .setSendTimeout(sendTimeoutMillis > 0 ? sendTimeoutMillis : defaultSendTimeoutMillis)
+      .setCodecName(codecName);
+  }
+
+}
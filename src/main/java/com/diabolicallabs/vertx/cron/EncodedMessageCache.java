@@ -0,0 +1,52 @@
+package com.diabolicallabs.vertx.cron;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The encoded messages of schedules, keyed by schedule id and bounded by the bytes they take. The
+ * least recently fired are dropped first, and encoded again if they fire again, so the messages of
+ * cancelled schedules age out without being released. Synchronized, as fires may be delivered from
+ * several threads.
+ */
+final class EncodedMessageCache {
+
+  private final long maxBytes;
+  private final Map<String, EncodedMessageCodec.Encoded> messages = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  /**
+   * @param maxBytes the most bytes of encoded messages to keep
+   */
+  EncodedMessageCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @return the schedule's message, encoded
+   */
+  synchronized EncodedMessageCodec.Encoded get(CronSchedule schedule) {
+
+    EncodedMessageCodec.Encoded encoded = messages.get(schedule.id);
+    // A schedule rescheduled with the same id may carry another message
+    if (encoded != null && encoded.message == schedule.message) return encoded;
+
+    encoded = EncodedMessageCodec.encode(schedule.message);
+    EncodedMessageCodec.Encoded replaced = messages.put(schedule.id, encoded);
+    if (replaced != null) bytes -= replaced.size();
+    bytes += encoded.size();
+
+    // Never drops the one just encoded, even if it alone is over the limit
+    for (Iterator<EncodedMessageCodec.Encoded> eldest = messages.values().iterator(); bytes > maxBytes && messages.size() > 1; ) {
+      bytes -= eldest.next().size();
+      eldest.remove();
+    }
+    return encoded;
+  }
+
+  synchronized int size() {
+    return messages.size();
+  }
+
+}
@@ -0,0 +1,122 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends a message that was encoded once, ahead of time, so a schedule firing over the wire writes
+ * the same bytes every time rather than encoding its message again. Receivers get the message as it
+ * was scheduled: a {@link JsonObject}, {@link JsonArray} or String. Every node that receives the
+ * fires of a scheduler with encoded_message_cache_bytes set must register the codec:
+ * <pre>
+ * vertx.eventBus().registerCodec(new EncodedMessageCodec());
+ * </pre>
+ */
+public class EncodedMessageCodec implements MessageCodec<EncodedMessageCodec.Encoded, Object> {
+
+  public static final String NAME = "vertx-cron-encoded";
+
+  private static final byte JSON_OBJECT = 0;
+  private static final byte JSON_ARRAY = 1;
+  private static final byte STRING = 2;
+
+  /**
+   * @return true if the message is of a type this codec can send
+   */
+  public static boolean encodes(Object message) {
+    return message instanceof JsonObject || message instanceof JsonArray || message instanceof String;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the message is not a JsonObject, JsonArray or String
+   */
+  public static Encoded encode(Object message) {
+
+    byte type;
+    Buffer payload;
+    if (message instanceof JsonObject) {
+      type = JSON_OBJECT;
+      payload = ((JsonObject) message).toBuffer();
+    } else if (message instanceof JsonArray) {
+      type = JSON_ARRAY;
+      payload = ((JsonArray) message).toBuffer();
+    } else if (message instanceof String) {
+      type = STRING;
+      payload = Buffer.buffer(((String) message).getBytes(StandardCharsets.UTF_8));
+    } else {
+      throw new IllegalArgumentException("Only a JsonObject, JsonArray or String can be encoded");
+    }
+
+    Buffer buffer = Buffer.buffer(payload.length() + 5).appendByte(type).appendInt(payload.length()).appendBuffer(payload);
+    return new Encoded(message, buffer);
+  }
+
+  @Override
+  public void encodeToWire(Buffer buffer, Encoded encoded) {
+    buffer.appendBuffer(encoded.buffer);
+  }
+
+  @Override
+  public Object decodeFromWire(int pos, Buffer buffer) {
+
+    byte type = buffer.getByte(pos);
+    int length = buffer.getInt(pos + 1);
+    Buffer payload = buffer.slice(pos + 5, pos + 5 + length);
+
+    switch (type) {
+      case JSON_OBJECT:
+        return new JsonObject(payload);
+      case JSON_ARRAY:
+        return new JsonArray(payload);
+      default:
+        return payload.toString(StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Delivers a copy of the message locally, as the JSON codecs do.
+   */
+  @Override
+  public Object transform(Encoded encoded) {
+
+    if (encoded.message instanceof JsonObject) return ((JsonObject) encoded.message).copy();
+    if (encoded.message instanceof JsonArray) return ((JsonArray) encoded.message).copy();
+    return encoded.message;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte systemCodecID() {
+    return -1;
+  }
+
+  /**
+   * A message and its encoding. The buffer is only read once made.
+   */
+  public static final class Encoded {
+
+    final Object message;
+    final Buffer buffer;
+
+    private Encoded(Object message, Buffer buffer) {
+      this.message = message;
+      this.buffer = buffer;
+    }
+
+    /**
+     * @return the size of the encoding in bytes
+     */
+    public int size() {
+      return buffer.length();
+    }
+  }
+
+}
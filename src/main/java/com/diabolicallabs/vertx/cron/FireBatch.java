@@ -0,0 +1,81 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The fires to one address, with the same action and local_only, collected over a batch window to
+ * be delivered as one message. Filled on the event loop of the vertical, and only read once handed
+ * over for delivery.
+ */
+final class FireBatch {
+
+  final String address;
+  final String action;
+  final boolean localOnly;
+  final List<CronSchedule> schedules = new ArrayList<>();
+  final List<Long> planned = new ArrayList<>();
+
+  FireBatch(CronSchedule first) {
+    this.address = first.address;
+    this.action = first.action;
+    this.localOnly = first.localOnly;
+  }
+
+  /**
+   * Fires of schedules with the same key go into the same batch.
+   */
+  static String key(CronSchedule schedule) {
+    return schedule.address + '\u0000' + schedule.action + '\u0000' + schedule.localOnly;
+  }
+
+  void add(CronSchedule schedule, long plannedMillis) {
+    schedules.add(schedule);
+    planned.add(plannedMillis);
+  }
+
+  /**
+   * Drops the fires of schedules that no longer pass, such as those cancelled since they fired.
+   */
+  void retain(Predicate<CronSchedule> armed) {
+
+    for (int index = schedules.size() - 1; index >= 0; index--) {
+      if (armed.test(schedules.get(index))) continue;
+      schedules.remove(index);
+      planned.remove(index);
+    }
+  }
+
+  int size() {
+    return schedules.size();
+  }
+
+  /**
+   * @return the message delivered for the batch: a cron_id and message for each fire, in order
+   */
+  JsonArray message() {
+
+    JsonArray message = new JsonArray();
+    for (CronSchedule schedule : schedules) {
+      message.add(new JsonObject().put("cron_id", schedule.id).put("message", schedule.message));
+    }
+    return message;
+  }
+
+  /**
+   * @return the longest send timeout of the schedules, so none times out sooner than it would alone
+   */
+  long sendTimeout() {
+
+    long timeout = 0;
+    for (CronSchedule schedule : schedules) {
+      timeout = Math.max(timeout, schedule.deliveryOptions.getSendTimeout());
+    }
+    return timeout;
+  }
+
+}
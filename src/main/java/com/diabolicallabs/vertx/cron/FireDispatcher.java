@@ -0,0 +1,121 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs the delivery of fires off the event loop that times them, so a large number of fires at the
+ * same instant is not sent from one core. Deliveries may run on several threads at once, but those
+ * of one schedule always run one at a time, in order, with the partitioned dispatcher.
+ */
+interface FireDispatcher {
+
+  void dispatch(CronSchedule schedule, Runnable delivery);
+
+  void close();
+
+  /**
+   * Spreads the deliveries over event loops, by the hash of the schedule's id. The event loops are
+   * those of child verticles deployed for the purpose, which are undeployed with the vertical.
+   * Until a partition has started, its deliveries run on the calling thread.
+   */
+  final class Partitioned implements FireDispatcher {
+
+    private final AtomicReferenceArray<Context> partitions;
+
+    Partitioned(Vertx vertx, int count) {
+
+      this.partitions = new AtomicReferenceArray<>(count);
+      for (int index = 0; index < count; index++) {
+        int partition = index;
+        vertx.deployVerticle(new AbstractVerticle() {
+          @Override
+          public void start() {
+            partitions.set(partition, context);
+          }
+        });
+      }
+    }
+
+    @Override
+    public void dispatch(CronSchedule schedule, Runnable delivery) {
+
+      Context partition = partitions.get((int) Math.floorMod(schedule.hash, (long) partitions.length()));
+      if (partition != null) {
+        partition.runOnContext(v -> delivery.run());
+      } else {
+        delivery.run();
+      }
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * Delivers on a pool of Vert.x worker threads.
+   */
+  final class Worker implements FireDispatcher {
+
+    private final WorkerExecutor executor;
+
+    Worker(Vertx vertx, String name, int poolSize) {
+      this.executor = vertx.createSharedWorkerExecutor(name, poolSize);
+    }
+
+    @Override
+    public void dispatch(CronSchedule schedule, Runnable delivery) {
+      executor.executeBlocking(() -> {
+        delivery.run();
+        return null;
+      }, false);
+    }
+
+    @Override
+    public void close() {
+      executor.close();
+    }
+  }
+
+  /**
+   * Delivers on a virtual thread per fire. Virtual threads need Java 21, so the executor is looked
+   * up at runtime.
+   */
+  final class Virtual implements FireDispatcher {
+
+    private final ExecutorService executor;
+
+    private Virtual(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    /**
+     * @return null if virtual threads are not available
+     */
+    static Virtual create() {
+      try {
+        return new Virtual((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+      } catch (ReflectiveOperationException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public void dispatch(CronSchedule schedule, Runnable delivery) {
+      executor.execute(delivery);
+    }
+
+    @Override
+    public void close() {
+      executor.shutdown();
+    }
+  }
+
+}
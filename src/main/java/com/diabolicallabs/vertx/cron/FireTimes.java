@@ -0,0 +1,135 @@
+package com.diabolicallabs.vertx.cron;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A ring of the upcoming fire times of a schedule, computed ahead so that arming its next fire only
+ * takes the head of the ring. The ring holds every fire after {@code from} up to {@code tail}, and
+ * once it is half empty a {@link Refiller} computes the fires after the tail, off the event loop.
+ * Asked for a fire it does not hold, such as after a stall longer than the ring, it computes it on
+ * the spot and starts over from there. Only touched on the event loop of the vertical.
+ */
+final class FireTimes {
+
+  /**
+   * Computes fire times of a plan away from the event loop.
+   */
+  interface Refiller {
+
+    /**
+     * Computes up to count fire times of the plan after the given instant, as {@link #after}
+     * does, and hands them to filled on the event loop of the vertical.
+     */
+    void refill(CronPlan plan, long after, int count, Consumer<long[]> filled);
+  }
+
+  private final CronPlan plan;
+  private final Refiller refiller;
+  private final long[] ring;
+  private int head;
+  private int size;
+  private long from = Long.MAX_VALUE;
+  private long tail;
+
+  // The plan has no fire after the tail
+  private boolean ended;
+  private boolean refilling;
+
+  // Changed when the ring starts over, so refills asked for before are dropped
+  private int generation;
+
+  FireTimes(CronPlan plan, int capacity, Refiller refiller) {
+
+    if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+
+    this.plan = plan;
+    this.refiller = refiller;
+    this.ring = new long[capacity];
+  }
+
+  /**
+   * Returns the first fire time strictly after the given instant, like {@link CronPlan#nextFireAfter(long)}.
+   */
+  long nextFireAfter(long epochMillis) {
+
+    if (epochMillis >= from) {
+      while (size > 0 && ring[head] <= epochMillis) {
+        from = ring[head];
+        head = (head + 1) % ring.length;
+        size--;
+      }
+      if (size > 0) {
+        refillIfLow();
+        return ring[head];
+      }
+      if (ended) return -1;
+    }
+
+    // Not held by the ring: compute it here and start over from it
+    long next = plan.nextFireAfter(epochMillis);
+    generation++;
+    refilling = false;
+    head = 0;
+    from = epochMillis;
+    if (next < 0) {
+      size = 0;
+      tail = epochMillis;
+      ended = true;
+      return -1;
+    }
+    ring[0] = next;
+    size = 1;
+    tail = next;
+    ended = false;
+    refillIfLow();
+    return next;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Computes up to count fire times of the plan after the given instant, fewer if it ends.
+   */
+  static long[] after(CronPlan plan, long epochMillis, int count) {
+
+    long[] times = new long[count];
+    long next = epochMillis;
+    for (int index = 0; index < count; index++) {
+      next = plan.nextFireAfter(next);
+      if (next < 0) return Arrays.copyOf(times, index);
+      times[index] = next;
+    }
+    return times;
+  }
+
+  private void refillIfLow() {
+
+    if (refilling || ended || size > ring.length / 2) return;
+
+    refilling = true;
+    int requested = generation;
+    int count = ring.length - size;
+    refiller.refill(plan, tail, count, times -> filled(requested, count, times));
+  }
+
+  /**
+   * Appends the fires computed after the tail. Only the head moves while they are computed, so they
+   * always fit.
+   */
+  private void filled(int requested, int count, long[] times) {
+
+    if (requested != generation) return;
+
+    refilling = false;
+    for (long time : times) {
+      ring[(head + size) % ring.length] = time;
+      size++;
+      tail = time;
+    }
+    if (times.length < count) ended = true;
+  }
+
+}
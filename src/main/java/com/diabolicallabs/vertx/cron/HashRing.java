@@ -0,0 +1,83 @@
+package com.diabolicallabs.vertx.cron;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A consistent hash ring of scheduler nodes. Each node is placed on the ring at a number of virtual
+ * points, and a schedule id belongs to the node at the first point at or after the id's hash. When
+ * a node joins or leaves, only the ids between its points and their predecessors change owner.
+ */
+final class HashRing {
+
+  static final int VIRTUAL_NODES = 128;
+
+  private final TreeMap<Long, String> points = new TreeMap<>();
+  private final Set<String> nodes = new TreeSet<>();
+
+  /**
+   * @return true if the node was not on the ring
+   */
+  boolean add(String node) {
+
+    if (!nodes.add(node)) return false;
+    for (int i = 0; i < VIRTUAL_NODES; i++) {
+      points.put(hash(node + '#' + i), node);
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the node was on the ring
+   */
+  boolean remove(String node) {
+
+    if (!nodes.remove(node)) return false;
+    for (int i = 0; i < VIRTUAL_NODES; i++) {
+      points.remove(hash(node + '#' + i), node);
+    }
+    return true;
+  }
+
+  boolean contains(String node) {
+    return nodes.contains(node);
+  }
+
+  /**
+   * @return the node owning the id, or null if the ring is empty
+   */
+  String owner(String id) {
+
+    if (points.isEmpty()) return null;
+    Map.Entry<Long, String> point = points.ceilingEntry(hash(id));
+    return point != null ? point.getValue() : points.firstEntry().getValue();
+  }
+
+  int size() {
+    return nodes.size();
+  }
+
+  /**
+   * A 64 bit FNV-1a hash of the UTF-8 bytes, finished with the MurmurHash3 mixer so that similar
+   * ids land far apart. Unlike {@link String#hashCode()}, it spreads evenly over the whole ring.
+   */
+  static long hash(String value) {
+
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.eventbus.DeliveryOptions;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Counts the requests in flight from "send" schedules, per schedule and per address, against the
+ * schedule's max_in_flight and the vertical's max_in_flight_per_address. Fires that do not fit and
+ * are to be queued wait per address, in the order they were made, until a request to the address
+ * completes. Synchronized, as fires may be delivered from several threads.
+ */
+final class InFlightLimits {
+
+  private final int maxPerAddress;
+  private final Map<String, Address> addresses = new HashMap<>();
+
+  /**
+   * @param maxPerAddress the most requests in flight to one address, or 0 for no limit
+   */
+  InFlightLimits(int maxPerAddress) {
+    this.maxPerAddress = maxPerAddress;
+  }
+
+  /**
+   * @return true if the schedule or the address of the schedule has a limit
+   */
+  boolean limits(CronSchedule schedule) {
+    return schedule.maxInFlight > 0 || maxPerAddress > 0;
+  }
+
+  /**
+   * Counts a request as in flight if the schedule and its address are below their limits.
+   *
+   * @return false if either is at its limit
+   */
+  synchronized boolean tryAcquire(CronSchedule schedule) {
+
+    Address address = addresses.get(schedule.address);
+    if (!fits(schedule, address)) return false;
+
+    acquire(schedule);
+    return true;
+  }
+
+  /**
+   * Counts a request as in flight whatever the limits.
+   */
+  synchronized void acquire(CronSchedule schedule) {
+    schedule.inFlight++;
+    addresses.computeIfAbsent(schedule.address, key -> new Address()).inFlight++;
+  }
+
+  synchronized void release(CronSchedule schedule) {
+
+    schedule.inFlight--;
+    Address address = addresses.get(schedule.address);
+    address.inFlight--;
+    if (address.inFlight == 0 && address.queued.isEmpty()) addresses.remove(schedule.address);
+  }
+
+  /**
+   * Queues a fire until it fits.
+   *
+   * @return false if the schedule already has max_queued fires waiting
+   */
+  synchronized boolean enqueue(CronSchedule schedule, long plannedMillis, DeliveryOptions options) {
+
+    if (schedule.queued >= schedule.maxQueued) return false;
+
+    schedule.queued++;
+    addresses.computeIfAbsent(schedule.address, key -> new Address()).queued.add(new Queued(schedule, plannedMillis, options));
+    return true;
+  }
+
+  /**
+   * Takes the oldest fire queued for the address that now fits, and counts it as in flight.
+   *
+   * @return null if there is none
+   */
+  synchronized Queued poll(String addressName) {
+
+    Address address = addresses.get(addressName);
+    if (address == null) return null;
+
+    for (Iterator<Queued> queued = address.queued.iterator(); queued.hasNext(); ) {
+      Queued fire = queued.next();
+      if (!fits(fire.schedule, address)) continue;
+
+      queued.remove();
+      fire.schedule.queued--;
+      acquire(fire.schedule);
+      return fire;
+    }
+    return null;
+  }
+
+  private boolean fits(CronSchedule schedule, Address address) {
+
+    if (schedule.maxInFlight > 0 && schedule.inFlight >= schedule.maxInFlight) return false;
+    return maxPerAddress <= 0 || address == null || address.inFlight < maxPerAddress;
+  }
+
+  static final class Queued {
+
+    final CronSchedule schedule;
+    final long plannedMillis;
+    final DeliveryOptions options;
+
+    Queued(CronSchedule schedule, long plannedMillis, DeliveryOptions options) {
+      this.schedule = schedule;
+      this.plannedMillis = plannedMillis;
+      this.options = options;
+    }
+  }
+
+  private static final class Address {
+    int inFlight;
+    final ArrayDeque<Queued> queued = new ArrayDeque<>();
+  }
+
+}
@@ -0,0 +1,161 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.shareddata.LocalMap;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the scheduler metrics to Micrometer, tagged with the address base and the scheduled
+ * address:
+ * <pre>
+ * cron.schedules.active   gauge    the schedules in the registry
+ * cron.fires              counter  schedules fired
+ * cron.fire.lateness      timer    how long after its planned time each schedule fired
+ * cron.misfires           counter  fires missed, whether the misfire policy coalesced or skipped them
+ * cron.fires.dropped      counter  fires dropped because too many requests were in flight
+ * cron.fires.queued       counter  fires queued until fewer requests were in flight
+ * cron.requests           timer    how long a "send" schedule's address took to reply, tagged with the outcome
+ * cron.result.forwards    timer    how long after the fire the reply was forwarded to the result address
+ * </pre>
+ * When the instances of the vertical partition the schedules, each meter is also tagged with the
+ * instance, as each has a registry of its own, and the meters are removed when the instance stops;
+ * otherwise they are shared by the instances, and kept.
+ * The meters of the first addresses seen are kept, up to a limit; the rest share the meters tagged
+ * with the address "other", so the number of series stays bounded; when fires are delivered from
+ * several threads, the limit may be overshot by a few addresses.
+ */
+final class MicrometerCronMetrics implements CronMetrics {
+
+  static final String OTHER = "other";
+
+  private final MeterRegistry meterRegistry;
+  private final Tags tags;
+  private final int maxAddresses;
+  private final Map<String, AddressMeters> addresses = new ConcurrentHashMap<>();
+  private final AddressMeters other;
+  private final boolean removable;
+  private final Queue<Meter> registered = new ConcurrentLinkedQueue<>();
+  private volatile boolean closed;
+
+  private MicrometerCronMetrics(MeterRegistry meterRegistry, String addressBase, String instance, int maxAddresses) {
+    this.meterRegistry = meterRegistry;
+    this.tags = instance == null ? Tags.of("address_base", addressBase) : Tags.of("address_base", addressBase, "instance", instance);
+    this.removable = instance != null;
+    this.maxAddresses = maxAddresses;
+    this.other = new AddressMeters(OTHER);
+  }
+
+  /**
+   * Registers with the global Micrometer registry. Micrometer is an optional dependency, so it is
+   * only referred to from this class.
+   *
+   * @param instance the instance tag, or null if the instances do not partition the schedules
+   */
+  static CronMetrics create(String addressBase, String instance, int maxAddresses, LocalMap<?, ?> registry) {
+
+    MicrometerCronMetrics metrics = new MicrometerCronMetrics(Metrics.globalRegistry, addressBase, instance, maxAddresses);
+    metrics.keep(Gauge.builder("cron.schedules.active", registry, LocalMap::size)
+      .description("The schedules in the registry")
+      .tags(metrics.tags)
+      .register(metrics.meterRegistry));
+    return metrics;
+  }
+
+  @Override
+  public void close() {
+
+    if (!removable) return;
+    closed = true;
+    for (Meter meter; (meter = registered.poll()) != null; ) {
+      meterRegistry.remove(meter);
+    }
+  }
+
+  @Override
+  public void fired(String address, long latenessMillis) {
+    AddressMeters meters = meters(address);
+    meters.fires.increment();
+    meters.lateness.record(Math.max(latenessMillis, 0), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void misfired(String address, int fires) {
+    meters(address).misfires.increment(fires);
+  }
+
+  @Override
+  public void dropped(String address) {
+    meters(address).dropped.increment();
+  }
+
+  @Override
+  public void queued(String address) {
+    meters(address).queued.increment();
+  }
+
+  @Override
+  public void replied(String address, long nanos, boolean succeeded) {
+    AddressMeters meters = meters(address);
+    (succeeded ? meters.replies : meters.failures).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void forwarded(String address, long nanos) {
+    meters(address).forwards.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  private AddressMeters meters(String address) {
+
+    AddressMeters meters = addresses.get(address);
+    if (meters != null) return meters;
+    // Replies coming in after close are recorded on a removed meter rather than a new one
+    if (addresses.size() >= maxAddresses || closed) return other;
+
+    return addresses.computeIfAbsent(address, AddressMeters::new);
+  }
+
+  /**
+   * Keeps the meter to remove it on close.
+   */
+  private <M extends Meter> M keep(M meter) {
+    registered.add(meter);
+    return meter;
+  }
+
+  private final class AddressMeters {
+
+    final Counter fires;
+    final Timer lateness;
+    final Counter misfires;
+    final Counter dropped;
+    final Counter queued;
+    final Timer replies;
+    final Timer failures;
+    final Timer forwards;
+
+    AddressMeters(String address) {
+
+      Tags addressTags = tags.and("address", address);
+      fires = keep(Counter.builder("cron.fires").tags(addressTags).register(meterRegistry));
+      lateness = keep(Timer.builder("cron.fire.lateness").tags(addressTags).register(meterRegistry));
+      misfires = keep(Counter.builder("cron.misfires").tags(addressTags).register(meterRegistry));
+      dropped = keep(Counter.builder("cron.fires.dropped").tags(addressTags).register(meterRegistry));
+      queued = keep(Counter.builder("cron.fires.queued").tags(addressTags).register(meterRegistry));
+      replies = keep(Timer.builder("cron.requests").tags(addressTags).tag("outcome", "success").register(meterRegistry));
+      failures = keep(Timer.builder("cron.requests").tags(addressTags).tag("outcome", "failure").register(meterRegistry));
+      forwards = keep(Timer.builder("cron.result.forwards").tags(addressTags).register(meterRegistry));
+    }
+  }
+
+}
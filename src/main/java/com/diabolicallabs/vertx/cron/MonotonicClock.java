@@ -0,0 +1,31 @@
+package com.diabolicallabs.vertx.cron;
+
+/**
+ * Epoch milliseconds read off {@link System#nanoTime()} from a fixed starting point, so the time
+ * never jumps when the wall clock is stepped. Over days it can drift from the wall clock by as much
+ * as the wall clock gets corrected.
+ */
+final class MonotonicClock implements CronClock {
+
+  private final long startMillis;
+  private final long startNanos;
+
+  MonotonicClock(CronClock wall) {
+    this.startMillis = wall.millis();
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * @return the clock precise timing runs on: a monotonic one started from a wall clock, or any
+   * other clock, such as a simulated one, as it is
+   */
+  static CronClock reading(CronClock clock) {
+    return clock instanceof WallClock ? new MonotonicClock(clock) : clock;
+  }
+
+  @Override
+  public long millis() {
+    return startMillis + (System.nanoTime() - startNanos) / 1_000_000;
+  }
+
+}
@@ -0,0 +1,165 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * The schedules of a {@link ScheduleSnapshot} that have not been restored yet. They are taken in
+ * order of their next fire time as they come due; until then they can still be looked up by id,
+ * selected and cancelled. They are indexed by address, expression, tag and group like
+ * {@link ScheduleIndex} does for the armed schedules, so selecting them costs as much as the
+ * schedules with the value selected by, rather than the whole snapshot.
+ */
+final class PendingSchedules {
+
+  private final ScheduleSnapshot snapshot;
+  private final NavigableSet<String> ids;
+  private final Map<String, NavigableSet<String>> byAddress;
+  private final Map<String, NavigableSet<String>> byExpression;
+  private final Map<String, NavigableSet<String>> byTag;
+  private final Map<String, NavigableSet<String>> byGroup;
+  private final BitSet released;
+  private int cursor;
+
+  /**
+   * Reads every request of the snapshot to index it, so it is made on a worker thread.
+   */
+  PendingSchedules(ScheduleSnapshot snapshot) {
+
+    this.snapshot = snapshot;
+    this.ids = new TreeSet<>();
+    this.byAddress = new HashMap<>();
+    this.byExpression = new HashMap<>();
+    this.byTag = new HashMap<>();
+    this.byGroup = new HashMap<>();
+    this.released = new BitSet();
+
+    for (int index = 0; index < snapshot.size(); index++) {
+      String id = snapshot.id(index);
+      JsonObject request = snapshot.schedule(index);
+      ids.add(id);
+      add(byAddress, request.getString("address"), id);
+      add(byExpression, request.getString("cron_expression"), id);
+      JsonArray tags = request.getJsonArray("tags");
+      if (tags != null) tags.forEach(tag -> add(byTag, (String) tag, id));
+      add(byGroup, request.getString("group"), id);
+    }
+  }
+
+  private PendingSchedules(PendingSchedules pending) {
+
+    this.snapshot = pending.snapshot;
+    this.ids = pending.ids;
+    this.byAddress = pending.byAddress;
+    this.byExpression = pending.byExpression;
+    this.byTag = pending.byTag;
+    this.byGroup = pending.byGroup;
+    this.released = (BitSet) pending.released.clone();
+    this.cursor = pending.cursor;
+  }
+
+  /**
+   * @return the schedules pending now, to read from another thread while these are taken and
+   * released
+   */
+  PendingSchedules copy() {
+    return new PendingSchedules(this);
+  }
+
+  boolean contains(String id) {
+    int index = snapshot.indexOf(id);
+    return index >= cursor && !released.get(index);
+  }
+
+  /**
+   * @return the request of the schedule with the id, or null if it is not pending
+   */
+  JsonObject get(String id) {
+    return contains(id) ? snapshot.schedule(snapshot.indexOf(id)) : null;
+  }
+
+  /**
+   * Drops the schedule with the id, if it is still pending.
+   *
+   * @return true if it was pending
+   */
+  boolean release(String id) {
+
+    int index = snapshot.indexOf(id);
+    if (index < cursor || released.get(index)) return false;
+
+    released.set(index);
+    return true;
+  }
+
+  /**
+   * Takes the pending schedules due at or before the time.
+   */
+  Map<String, JsonObject> take(long until) {
+
+    Map<String, JsonObject> due = new LinkedHashMap<>();
+    while (cursor < snapshot.size() && snapshot.nextFire(cursor) <= until) {
+      if (!released.get(cursor)) due.put(snapshot.id(cursor), snapshot.schedule(cursor));
+      cursor++;
+    }
+    return due;
+  }
+
+  /**
+   * @return the ids of the pending schedules with the address, expression, tag and group of the
+   * query, in order, found under the narrowest value it selects by, or among every pending schedule
+   * if it selects by none
+   */
+  NavigableSet<String> selected(ScheduleIndex.Query query) {
+
+    NavigableSet<String> candidates;
+    if (query.tag != null) {
+      candidates = byTag.get(query.tag);
+    } else if (query.group != null) {
+      candidates = byGroup.get(query.group);
+    } else if (query.address != null) {
+      candidates = byAddress.get(query.address);
+    } else if (query.cronExpression != null) {
+      candidates = byExpression.get(query.cronExpression);
+    } else {
+      candidates = ids;
+    }
+    if (candidates == null) return Collections.emptyNavigableSet();
+
+    NavigableSet<String> selected = new TreeSet<>();
+    for (String id : candidates) {
+      if (has(byAddress, query.address, id) && has(byExpression, query.cronExpression, id)
+        && has(byTag, query.tag, id) && has(byGroup, query.group, id) && contains(id)) {
+        selected.add(id);
+      }
+    }
+    return selected;
+  }
+
+  int size() {
+    return snapshot.size() - cursor - released.get(cursor, snapshot.size()).cardinality();
+  }
+
+  private static void add(Map<String, NavigableSet<String>> index, String key, String id) {
+    if (key != null) index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+  }
+
+  /**
+   * @return true if the query does not select by the value, or the id is under it
+   */
+  private static boolean has(Map<String, NavigableSet<String>> index, String key, String id) {
+
+    if (key == null) return true;
+    NavigableSet<String> ids = index.get(key);
+    return ids != null && ids.contains(id);
+  }
+
+}
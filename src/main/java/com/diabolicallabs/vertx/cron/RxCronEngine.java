@@ -0,0 +1,85 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Timed;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.reactivex.core.shareddata.LocalMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The original engine: every schedule gets its own {@link CronObservable} chain and Vert.x timer.
+ * When precise, the chains come from {@link CronObservable#precise(Scheduler, String, String, CronClock)}.
+ */
+class RxCronEngine implements CronEngine {
+
+  Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Scheduler scheduler;
+  private final CronClock clock;
+  private final LocalMap<String, JsonObject> registry;
+  private final FireHandler fireHandler;
+  private final boolean precise;
+  private final Map<String, Disposable> subscriptions = new HashMap<>();
+
+  RxCronEngine(Scheduler scheduler, CronClock clock, boolean precise, LocalMap<String, JsonObject> registry, FireHandler fireHandler) {
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.precise = precise;
+    this.registry = registry;
+    this.fireHandler = fireHandler;
+  }
+
+  @Override
+  public void start() {
+  }
+
+  @Override
+  public void schedule(CronSchedule schedule) {
+
+    // Only the planned times are used, so the wall chain skips timestamping them
+    Observable<Long> fires = precise
+      ? CronObservable.precise(scheduler, schedule::nextFireAfter, schedule.cronExpression, clock, schedule.offsetMillis).map(Timed::value)
+      : CronObservable.planned(scheduler, schedule::nextFireAfter, schedule.cronExpression, clock, schedule.offsetMillis);
+
+    Disposable disposable = fires
+      .takeWhile(planned -> !schedule.replaced && registry.containsKey(schedule.id))
+      .subscribe(
+        planned -> fireHandler.fire(schedule, planned),
+        fault -> {
+          subscriptions.remove(schedule.id);
+          logger.error("Unable to process cronspec " + schedule.cronExpression + " for address " + schedule.address, fault);
+        },
+        () -> subscriptions.remove(schedule.id)
+      );
+
+    if (!disposable.isDisposed()) subscriptions.put(schedule.id, disposable);
+  }
+
+  /**
+   * Disposes the chain right away, which cancels its pending Vert.x timer and releases the schedule.
+   */
+  @Override
+  public void cancel(String id) {
+
+    Disposable disposable = subscriptions.remove(id);
+    if (disposable != null) disposable.dispose();
+  }
+
+  @Override
+  public int size() {
+    return subscriptions.size();
+  }
+
+  @Override
+  public void stop() {
+    subscriptions.values().forEach(Disposable::dispose);
+    subscriptions.clear();
+  }
+
+}
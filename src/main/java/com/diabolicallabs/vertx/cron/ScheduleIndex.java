@@ -0,0 +1,307 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * The armed schedules of the verticals sharing a registry, ordered by id and indexed by address,
+ * expression, tag and group, so they can be looked up, listed a page at a time and cancelled in bulk
+ * without walking the registry. Each index only holds the ids with a value, so its size and the cost
+ * of reading it follow the schedules that match. Shared the same way as the registry, and safe to
+ * use from any thread, so listing can run on a worker thread rather than on the event loops firing
+ * the schedules.
+ */
+final class ScheduleIndex implements Shareable {
+
+  static final int DEFAULT_LIMIT = 100;
+  static final int MAX_LIMIT = 1000;
+
+  private final ConcurrentNavigableMap<String, CronSchedule> schedules = new ConcurrentSkipListMap<>();
+  private final Map<String, NavigableSet<String>> byAddress = new ConcurrentHashMap<>();
+  private final Map<String, NavigableSet<String>> byExpression = new ConcurrentHashMap<>();
+  private final Map<String, NavigableSet<String>> byTag = new ConcurrentHashMap<>();
+  private final Map<String, NavigableSet<String>> byGroup = new ConcurrentHashMap<>();
+
+  /**
+   * @return the index kept in the local map of the given name, created if there is none yet
+   */
+  static ScheduleIndex shared(Vertx vertx, String name) {
+
+    LocalMap<String, ScheduleIndex> indexes = vertx.sharedData().getLocalMap(name);
+    ScheduleIndex created = new ScheduleIndex();
+    ScheduleIndex index = indexes.putIfAbsent("index", created);
+    return index != null ? index : created;
+  }
+
+  void add(CronSchedule schedule) {
+    schedules.put(schedule.id, schedule);
+    index(schedule);
+  }
+
+  void remove(String id) {
+
+    CronSchedule schedule = schedules.remove(id);
+    if (schedule != null) unindex(schedule, null);
+  }
+
+  /**
+   * Swaps the schedule with the same id for this one. The id stays in the index throughout, so a
+   * lookup or a listing made meanwhile finds one or the other.
+   */
+  void replace(CronSchedule schedule) {
+
+    CronSchedule previous = schedules.put(schedule.id, schedule);
+    index(schedule);
+    if (previous != null) unindex(previous, schedule);
+  }
+
+  CronSchedule get(String id) {
+    return schedules.get(id);
+  }
+
+  int size() {
+    return schedules.size();
+  }
+
+  /**
+   * Lists the schedules matching the query in order of id, starting after the query's cursor.
+   *
+   * @param now the current time, to work out the next fire of each schedule
+   * @return the page of schedules, and the cursor to the next page, or null if this is the last one
+   */
+  JsonObject list(Query query, long now) {
+
+    NavigableSet<String> candidates = candidates(query);
+    if (candidates == null) return page(Collections.emptyList(), schedules::get, query, now);
+    return page(query.after != null ? candidates.tailSet(query.after, false) : candidates, schedules::get, query, now);
+  }
+
+  /**
+   * Lists the schedules matching the query from those with the ids.
+   *
+   * @param ids      the ids after the query's cursor, in order
+   * @param schedule looks up the schedule with an id, or gives null if there is none any more
+   * @return the page of schedules, and the cursor to the next page, or null if this is the last one
+   */
+  static JsonObject page(Iterable<String> ids, Function<String, CronSchedule> schedule, Query query, long now) {
+
+    JsonArray page = new JsonArray();
+    String next = null;
+    for (String id : ids) {
+      CronSchedule candidate = schedule.apply(id);
+      if (candidate == null) continue;
+
+      long nextFire = nextFire(candidate, now);
+      if (!query.matches(candidate, nextFire)) continue;
+      if (page.size() == query.limit) {
+        next = page.getJsonObject(page.size() - 1).getString("cron_id");
+        break;
+      }
+      page.add(stats(candidate, nextFire));
+    }
+    return new JsonObject().put("schedules", page).put("next", next);
+  }
+
+  /**
+   * @return the ids of every schedule with the address, expression, tag and group of the query,
+   * whatever its next fire; the query must select by at least one of them
+   */
+  List<String> matching(Query query) {
+
+    List<String> ids = new ArrayList<>();
+    NavigableSet<String> candidates = candidates(query);
+    if (candidates == null) return ids;
+
+    for (String id : candidates) {
+      CronSchedule schedule = schedules.get(id);
+      if (schedule != null && query.selects(schedule)) ids.add(id);
+    }
+    return ids;
+  }
+
+  /**
+   * @return the ids under the narrowest value the query selects by, tried from tag to expression as
+   * those usually match the fewest schedules, every id if it selects by none, or null if there are
+   * no schedules with that value
+   */
+  private NavigableSet<String> candidates(Query query) {
+
+    if (query.tag != null) return byTag.get(query.tag);
+    if (query.group != null) return byGroup.get(query.group);
+    if (query.address != null) return byAddress.get(query.address);
+    if (query.cronExpression != null) return byExpression.get(query.cronExpression);
+    return schedules.navigableKeySet();
+  }
+
+  /**
+   * Merges the pages listed by several nodes for the same query into one, in order of id.
+   */
+  static JsonObject merge(List<JsonObject> pages, int limit) {
+
+    List<JsonObject> merged = new ArrayList<>();
+    boolean more = false;
+    for (JsonObject page : pages) {
+      page.getJsonArray("schedules").forEach(entry -> merged.add((JsonObject) entry));
+      more |= page.getString("next") != null;
+    }
+    merged.sort(Comparator.comparing(entry -> entry.getString("cron_id")));
+
+    more |= merged.size() > limit;
+    List<JsonObject> page = merged.subList(0, Math.min(limit, merged.size()));
+    String next = more && !page.isEmpty() ? page.get(page.size() - 1).getString("cron_id") : null;
+    return new JsonObject().put("schedules", new JsonArray(new ArrayList<>(page))).put("next", next);
+  }
+
+  /**
+   * @return the next planned fire of the schedule after now, or -1 if it never fires again
+   */
+  static long nextFire(CronSchedule schedule, long now) {
+    return schedule.plan.nextFireAfter(Math.max(now - schedule.offsetMillis, schedule.lastPlanned));
+  }
+
+  /**
+   * @param nextFire the next planned fire of the schedule, or -1 if there is none
+   */
+  static JsonObject stats(CronSchedule schedule, long nextFire) {
+
+    long lastFire = schedule.lastPlanned;
+    long lastLatency = schedule.lastLatencyMillis;
+    return new JsonObject()
+      .put("cron_id", schedule.id)
+      .put("cron_expression", schedule.cronExpression)
+      .put("address", schedule.address)
+      .put("tags", new JsonArray(new ArrayList<>(schedule.tags)))
+      .put("group", schedule.group)
+      .put("next_fire", nextFire >= 0 ? nextFire : null)
+      .put("last_fire", lastFire > 0 ? lastFire : null)
+      .put("fires", schedule.fires)
+      .put("last_latency_ms", lastLatency >= 0 ? lastLatency : null)
+      .put("last_error", schedule.lastError);
+  }
+
+  private void index(CronSchedule schedule) {
+
+    add(byAddress, schedule.address, schedule.id);
+    add(byExpression, schedule.cronExpression, schedule.id);
+    for (String tag : schedule.tags) {
+      add(byTag, tag, schedule.id);
+    }
+    if (schedule.group != null) add(byGroup, schedule.group, schedule.id);
+  }
+
+  /**
+   * Takes the id of the schedule out of the indexes, but for the values its replacement, if any,
+   * still has.
+   */
+  private void unindex(CronSchedule schedule, CronSchedule replacement) {
+
+    String id = schedule.id;
+    if (replacement == null || !schedule.address.equals(replacement.address)) remove(byAddress, schedule.address, id);
+    if (replacement == null || !schedule.cronExpression.equals(replacement.cronExpression)) remove(byExpression, schedule.cronExpression, id);
+    for (String tag : schedule.tags) {
+      if (replacement == null || !replacement.tags.contains(tag)) remove(byTag, tag, id);
+    }
+    if (schedule.group != null && (replacement == null || !schedule.group.equals(replacement.group))) remove(byGroup, schedule.group, id);
+  }
+
+  private static void add(Map<String, NavigableSet<String>> index, String key, String id) {
+
+    index.compute(key, (k, ids) -> {
+      if (ids == null) ids = new ConcurrentSkipListSet<>();
+      ids.add(id);
+      return ids;
+    });
+  }
+
+  private static void remove(Map<String, NavigableSet<String>> index, String key, String id) {
+
+    index.computeIfPresent(key, (k, ids) -> {
+      ids.remove(id);
+      return ids.isEmpty() ? null : ids;
+    });
+  }
+
+  /**
+   * A validated request to {@code <address_base>.list}, or to {@code <address_base>.cancel.by}, which
+   * only selects by address, expression, tag and group.
+   */
+  static final class Query {
+
+    final String address;
+    final String cronExpression;
+    final String tag;
+    final String group;
+    final long nextFireFrom;
+    final long nextFireTo;
+    final String after;
+    final int limit;
+
+    private Query(JsonObject filter) {
+
+      this.address = filter.getString("address");
+      this.cronExpression = filter.getString("cron_expression");
+      this.tag = filter.getString("tag");
+      this.group = filter.getString("group");
+      this.nextFireFrom = filter.getLong("next_fire_from", Long.MIN_VALUE);
+      this.nextFireTo = filter.getLong("next_fire_to", Long.MAX_VALUE);
+      this.after = filter.getString("after");
+      this.limit = filter.getInteger("limit", DEFAULT_LIMIT);
+    }
+
+    /**
+     * @param filter the request, or null to list every schedule
+     * @throws IllegalArgumentException if a field of the request is not valid
+     */
+    static Query of(JsonObject filter) {
+
+      Query query;
+      try {
+        query = new Query(filter != null ? filter : new JsonObject());
+      } catch (ClassCastException cce) {
+        throw new IllegalArgumentException("Invalid request: " + cce.getMessage());
+      }
+      if (query.limit < 1 || query.limit > MAX_LIMIT) {
+        throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+      }
+      return query;
+    }
+
+    /**
+     * @return true if the query selects schedules by address, expression, tag or group
+     */
+    boolean selective() {
+      return address != null || cronExpression != null || tag != null || group != null;
+    }
+
+    boolean selects(CronSchedule schedule) {
+
+      if (address != null && !address.equals(schedule.address)) return false;
+      if (cronExpression != null && !cronExpression.equals(schedule.cronExpression)) return false;
+      if (tag != null && !schedule.tags.contains(tag)) return false;
+      return group == null || group.equals(schedule.group);
+    }
+
+    boolean matches(CronSchedule schedule, long nextFire) {
+
+      if (!selects(schedule)) return false;
+      if (nextFireFrom == Long.MIN_VALUE && nextFireTo == Long.MAX_VALUE) return true;
+      return nextFire >= 0 && nextFire >= nextFireFrom && nextFire <= nextFireTo;
+    }
+  }
+
+}
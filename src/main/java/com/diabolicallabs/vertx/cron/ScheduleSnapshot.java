@@ -0,0 +1,30 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A read-only view of stored schedule requests, ordered by the time each one is next due, which
+ * lets a {@link CronEventSchedulerVertical} restore them as they come due rather than all at start.
+ * Views are read from the event loop of the vertical that opened them, and from worker threads
+ * while it lists the schedules not restored yet, so they must allow reads from several threads.
+ */
+public interface ScheduleSnapshot {
+
+  int size();
+
+  /**
+   * The epoch millisecond the request at the index was next due when the snapshot was taken.
+   * Never decreases with the index.
+   */
+  long nextFire(int index);
+
+  String id(int index);
+
+  JsonObject schedule(int index);
+
+  /**
+   * @return the index of the request with the id, or -1 if there is none
+   */
+  int indexOf(String id);
+
+}
@@ -0,0 +1,59 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+/**
+ * Persists the schedule requests accepted by a {@link CronEventSchedulerVertical}, so they can be
+ * restored when the vertical starts again.
+ *
+ * <p>{@link #put} and {@link #remove} are called on the event loop and must not block; an
+ * implementation is expected to buffer them until the next {@link #flush}. The other methods are
+ * called from a worker thread and may block.
+ *
+ * <p>Implementations are configured with the "store" object of the vertical's configuration and
+ * must have a public constructor taking that object.
+ */
+public interface ScheduleStore {
+
+  /**
+   * Hands every stored schedule request to the consumer, keyed by its cron_id.
+   */
+  void load(BiConsumer<String, JsonObject> consumer) throws IOException;
+
+  /**
+   * Opens the stored schedule requests for a lazy restore. Stores that can only be read whole
+   * return null, and are restored with {@link #load} instead.
+   */
+  default ScheduleSnapshot open() throws IOException {
+    return null;
+  }
+
+  /**
+   * When the store was last written to before it was loaded or opened, in epoch milliseconds, or -1
+   * if it does not keep track. Fires planned between then and the restore were missed while the
+   * scheduler was down.
+   */
+  default long lastWritten() {
+    return -1;
+  }
+
+  void put(String id, JsonObject schedule);
+
+  void remove(String id);
+
+  /**
+   * Writes out everything buffered by {@link #put} and {@link #remove}.
+   */
+  void flush() throws IOException;
+
+  /**
+   * Reclaims the space used by cancelled and replaced schedules, if worthwhile.
+   */
+  void compact() throws IOException;
+
+  void close() throws IOException;
+
+}
@@ -0,0 +1,143 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.Future;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.AsyncMap;
+import io.vertx.reactivex.core.Vertx;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects one scheduler to fire the schedules of each shard of the id space. A scheduler leads a
+ * shard while it holds the shard's lease, a "node id@expiry" entry in a cluster-wide map that it
+ * renews three times per lease with a compare and set. When the leader stops, the lease is released
+ * at once; when it dies, the lease expires and is taken by the first scheduler to look after that.
+ *
+ * <p>A scheduler only counts a lease as held until a lease period after it last asked for it, so it
+ * gives up firing before anyone else can take over, even if its renewals are delayed. Expiry is
+ * judged on the wall clock, so the clocks of the schedulers have to agree to well within a lease.
+ * Confined to the event loop of the vertical that created it.
+ */
+final class ShardLeases {
+
+  Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Vertx vertx;
+  private final String mapName;
+  private final String nodeId;
+  private final long leaseMillis;
+  private final String[] held;
+  private final long[] heldUntil;
+
+  private AsyncMap<String, String> leases;
+  private long timerId = -1;
+
+  /**
+   * @param mapName the cluster-wide map holding the leases
+   */
+  ShardLeases(Vertx vertx, String mapName, String nodeId, int shards, long leaseMillis) {
+    this.vertx = vertx;
+    this.mapName = mapName;
+    this.nodeId = nodeId;
+    this.leaseMillis = leaseMillis;
+    this.held = new String[shards];
+    this.heldUntil = new long[shards];
+  }
+
+  /**
+   * Starts competing for the leases. Until the first ones are taken, no shard is led.
+   */
+  void start() {
+
+    vertx.getDelegate().sharedData().<String, String>getClusterWideMap(mapName).onComplete(map -> {
+      if (map.failed()) {
+        logger.error("Unable to get the lease map " + mapName + ", no schedules will fire", map.cause());
+        return;
+      }
+
+      leases = map.result();
+      renew();
+      timerId = vertx.setPeriodic(Math.max(leaseMillis / 3, 1), id -> renew());
+    });
+  }
+
+  void stop() {
+
+    if (timerId != -1) vertx.cancelTimer(timerId);
+    if (leases == null) return;
+    for (int shard = 0; shard < held.length; shard++) {
+      if (held[shard] != null) leases.removeIfPresent(key(shard), held[shard]);
+      held[shard] = null;
+    }
+  }
+
+  /**
+   * @return true if this scheduler leads the shard of the id
+   */
+  boolean leads(String id) {
+    int shard = shard(id);
+    return held[shard] != null && System.nanoTime() - heldUntil[shard] < 0;
+  }
+
+  private void renew() {
+
+    for (int shard = 0; shard < held.length; shard++) {
+
+      int index = shard;
+      long asked = System.nanoTime();
+      String lease = nodeId + '@' + (System.currentTimeMillis() + leaseMillis);
+
+      if (held[index] != null) {
+        leases.replaceIfPresent(key(index), held[index], lease).onComplete(renewed -> {
+          if (renewed.succeeded() && renewed.result()) {
+            hold(index, lease, asked);
+          } else {
+            held[index] = null;
+            logger.info("Lost the lease of shard " + index);
+          }
+        });
+        continue;
+      }
+
+      leases.get(key(index)).onComplete(current -> {
+        if (current.failed()) return;
+
+        String holder = current.result();
+        Future<Boolean> taken;
+        if (holder == null) {
+          taken = leases.putIfAbsent(key(index), lease).map(previous -> previous == null);
+        } else if (holder.startsWith(nodeId + '@') || expiry(holder) < System.currentTimeMillis()) {
+          taken = leases.replaceIfPresent(key(index), holder, lease);
+        } else {
+          return;
+        }
+
+        taken.onComplete(result -> {
+          if (result.succeeded() && result.result()) {
+            hold(index, lease, asked);
+            logger.debug("Took the lease of shard " + index);
+          }
+        });
+      });
+    }
+  }
+
+  private void hold(int shard, String lease, long asked) {
+    held[shard] = lease;
+    heldUntil[shard] = asked + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+  }
+
+  private int shard(String id) {
+    return (int) Math.floorMod(HashRing.hash(id), (long) held.length);
+  }
+
+  private static long expiry(String lease) {
+    return Long.parseLong(lease.substring(lease.lastIndexOf('@') + 1));
+  }
+
+  private static String key(int shard) {
+    return "shard." + shard;
+  }
+
+}
@@ -0,0 +1,347 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link ScheduleStore} that keeps the schedules in a binary snapshot, memory mapped on start so
+ * it can be restored lazily, plus an {@link AppendLogScheduleStore} of the changes made since the
+ * snapshot was written. The log is folded into a new snapshot when it grows large and when the
+ * store is closed, so a restart after a clean shutdown only maps the snapshot.
+ *
+ * <p>The snapshot holds a header, fixed-width records sorted by next fire time, an open addressing
+ * table from id hash to record, and an arena with each id and its schedule request:
+ * <pre>
+ * header   magic (int), version (int), record count (int), table size (int)
+ * record   next fire (long), id hash (int), arena offset (int), id length (int), request length (int)
+ * table    record index + 1 (int), or 0 for an empty slot
+ * arena    id (UTF-8) followed by the request (JSON, UTF-8), for each record
+ * </pre>
+ *
+ * <p>Configuration:
+ * <pre>
+ * {
+ *   "path": &lt;string&gt;,           the snapshot file; the change log is kept next to it with a .log suffix
+ *   "snapshot_ratio": &lt;number&gt;  write a new snapshot once the change log holds this many records per
+ *                                 stored schedule, default 0.25
+ * }
+ * </pre>
+ */
+public class SnapshotScheduleStore implements ScheduleStore {
+
+  private static final int MAGIC = 0x56584353;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 16;
+  private static final int RECORD_BYTES = 24;
+  private static final int MIN_SNAPSHOT_RECORDS = 1024;
+
+  Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Path path;
+  private final Path changesPath;
+  private final double snapshotRatio;
+  private final AppendLogScheduleStore changes;
+
+  private int snapshotSize;
+  private long lastWritten = -1;
+
+  public SnapshotScheduleStore(JsonObject config) {
+
+    String path = config.getString("path");
+    if (path == null) throw new IllegalArgumentException("store path is required");
+
+    this.path = Paths.get(path);
+    this.snapshotRatio = config.getDouble("snapshot_ratio", 0.25);
+    this.changesPath = Paths.get(path + ".log");
+    this.changes = new AppendLogScheduleStore(new JsonObject().put("path", changesPath.toString()));
+  }
+
+  @Override
+  public synchronized void load(BiConsumer<String, JsonObject> consumer) throws IOException {
+    lastWritten = modified();
+    read().forEach(consumer);
+  }
+
+  /**
+   * Maps the snapshot. If the process stopped without closing the store, the change log is folded
+   * into a new snapshot first.
+   */
+  @Override
+  public synchronized ScheduleSnapshot open() throws IOException {
+
+    lastWritten = modified();
+
+    // Counts the changes left behind
+    changes.replay(new LinkedHashMap<>());
+    if (!Files.exists(path) || changes.records() > 0) write(read());
+
+    MappedSnapshot snapshot = map();
+    snapshotSize = snapshot.size();
+    return snapshot;
+  }
+
+  @Override
+  public synchronized long lastWritten() {
+    return lastWritten;
+  }
+
+  @Override
+  public void put(String id, JsonObject schedule) {
+    changes.put(id, schedule);
+  }
+
+  @Override
+  public void remove(String id) {
+    changes.remove(id);
+  }
+
+  /**
+   * Synchronized with writing a snapshot, so nothing is appended to the change log between reading
+   * it and truncating it.
+   */
+  @Override
+  public synchronized void flush() throws IOException {
+    changes.flush();
+    if (!Files.exists(changesPath) && Files.exists(path)) Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+  }
+
+  @Override
+  public synchronized void compact() throws IOException {
+
+    changes.flush();
+    if (changes.records() < Math.max(MIN_SNAPSHOT_RECORDS, snapshotRatio * snapshotSize)) return;
+
+    write(read());
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+
+    changes.flush();
+    if (changes.records() > 0) write(read());
+    changes.close();
+  }
+
+  /**
+   * The later of the modification times of the snapshot and the change log, either of which a flush
+   * touches.
+   */
+  private long modified() throws IOException {
+    return Math.max(AppendLogScheduleStore.modified(path), AppendLogScheduleStore.modified(changesPath));
+  }
+
+  /**
+   * Reads the snapshot and replays the change log over it.
+   */
+  private Map<String, JsonObject> read() throws IOException {
+
+    Map<String, JsonObject> schedules = new LinkedHashMap<>();
+    if (Files.exists(path)) {
+      MappedSnapshot snapshot = map();
+      for (int index = 0; index < snapshot.size(); index++) {
+        schedules.put(snapshot.id(index), snapshot.schedule(index));
+      }
+    }
+
+    changes.replay(schedules);
+    return schedules;
+  }
+
+  private void write(Map<String, JsonObject> schedules) throws IOException {
+
+    long now = System.currentTimeMillis();
+
+    List<Entry> entries = new ArrayList<>(schedules.size());
+    schedules.forEach((id, schedule) -> entries.add(new Entry(id, schedule, nextFire(schedule, now))));
+    entries.sort(Comparator.comparingLong(entry -> entry.nextFire));
+
+    int tableSize = Integer.highestOneBit(Math.max(entries.size(), 1) * 2) * 2;
+    int[] table = new int[tableSize];
+    for (int index = 0; index < entries.size(); index++) {
+      int slot = spread(entries.get(index).id.hashCode()) & (tableSize - 1);
+      while (table[slot] != 0) slot = (slot + 1) & (tableSize - 1);
+      table[slot] = index + 1;
+    }
+
+    Path written = path.resolveSibling(path.getFileName() + ".snapshot");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(written)))) {
+
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(entries.size());
+      out.writeInt(tableSize);
+
+      long offset = 0;
+      for (Entry entry : entries) {
+        if (offset > Integer.MAX_VALUE) throw new IOException("Schedule snapshot " + path + " is larger than 2GB");
+        out.writeLong(entry.nextFire);
+        out.writeInt(entry.id.hashCode());
+        out.writeInt((int) offset);
+        out.writeInt(entry.idBytes.length);
+        out.writeInt(entry.scheduleBytes.length);
+        offset += entry.idBytes.length + entry.scheduleBytes.length;
+      }
+
+      for (int slot : table) {
+        out.writeInt(slot);
+      }
+
+      for (Entry entry : entries) {
+        out.write(entry.idBytes);
+        out.write(entry.scheduleBytes);
+      }
+    }
+
+    Files.move(written, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    changes.truncate();
+    snapshotSize = entries.size();
+    logger.info("Wrote schedule snapshot " + path + " with " + entries.size() + " schedules");
+  }
+
+  private MappedSnapshot map() throws IOException {
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) throw new IOException("Schedule snapshot " + path + " is larger than 2GB");
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+        throw new IOException("Not a schedule snapshot: " + path);
+      }
+      return new MappedSnapshot(buffer);
+    }
+  }
+
+  /**
+   * Schedules that cannot be planned are given the current time, so they are restored, and
+   * rejected with the reason, right away.
+   */
+  private static long nextFire(JsonObject schedule, long now) {
+
+    try {
+      long next = CronPlanCache.shared().get(schedule.getString("cron_expression"), schedule.getString("timezone_name")).nextFireAfter(now);
+      return next < 0 ? now : next;
+    } catch (RuntimeException e) {
+      return now;
+    }
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static final class Entry {
+
+    final String id;
+    final byte[] idBytes;
+    final byte[] scheduleBytes;
+    final long nextFire;
+
+    Entry(String id, JsonObject schedule, long nextFire) {
+      this.id = id;
+      this.idBytes = id.getBytes(StandardCharsets.UTF_8);
+      this.scheduleBytes = schedule.encode().getBytes(StandardCharsets.UTF_8);
+      this.nextFire = nextFire;
+    }
+  }
+
+  private static final class MappedSnapshot implements ScheduleSnapshot {
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int tableSize;
+    private final int tableOffset;
+    private final int arenaOffset;
+
+    MappedSnapshot(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+      this.size = buffer.getInt(8);
+      this.tableSize = buffer.getInt(12);
+      this.tableOffset = HEADER_BYTES + size * RECORD_BYTES;
+      this.arenaOffset = tableOffset + tableSize * 4;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public long nextFire(int index) {
+      return buffer.getLong(record(index));
+    }
+
+    @Override
+    public String id(int index) {
+      int record = record(index);
+      return decode(arenaOffset + buffer.getInt(record + 12), buffer.getInt(record + 16));
+    }
+
+    @Override
+    public JsonObject schedule(int index) {
+      int record = record(index);
+      int idLength = buffer.getInt(record + 16);
+      return new JsonObject(decode(arenaOffset + buffer.getInt(record + 12) + idLength, buffer.getInt(record + 20)));
+    }
+
+    @Override
+    public int indexOf(String id) {
+
+      int hash = id.hashCode();
+      byte[] bytes = null;
+      int slot = spread(hash) & (tableSize - 1);
+
+      int entry;
+      while ((entry = buffer.getInt(tableOffset + slot * 4)) != 0) {
+        int record = record(entry - 1);
+        if (buffer.getInt(record + 8) == hash) {
+          if (bytes == null) bytes = id.getBytes(StandardCharsets.UTF_8);
+          if (matches(arenaOffset + buffer.getInt(record + 12), buffer.getInt(record + 16), bytes)) return entry - 1;
+        }
+        slot = (slot + 1) & (tableSize - 1);
+      }
+      return -1;
+    }
+
+    private int record(int index) {
+      return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    private boolean matches(int offset, int length, byte[] bytes) {
+
+      if (length != bytes.length) return false;
+      for (int i = 0; i < length; i++) {
+        if (buffer.get(offset + i) != bytes[i]) return false;
+      }
+      return true;
+    }
+
+    private String decode(int offset, int length) {
+
+      byte[] bytes = new byte[length];
+      for (int i = 0; i < length; i++) {
+        bytes[i] = buffer.get(offset + i);
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+}
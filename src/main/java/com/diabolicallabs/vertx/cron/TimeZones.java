@@ -0,0 +1,40 @@
+package com.diabolicallabs.vertx.cron;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * An immutable index of the time zone names accepted by the scheduler, built once from
+ * {@link TimeZone#getAvailableIDs()}, so validating and resolving a timezone_name is a single hash
+ * lookup.
+ */
+public final class TimeZones {
+
+  private static final Map<String, ZoneId> ZONES;
+
+  static {
+    Map<String, ZoneId> zones = new HashMap<>();
+    for (String id : TimeZone.getAvailableIDs()) {
+      zones.put(id, TimeZone.getTimeZone(id).toZoneId());
+    }
+    ZONES = Collections.unmodifiableMap(zones);
+  }
+
+  private TimeZones() {
+  }
+
+  public static boolean isValid(String timeZoneName) {
+    return ZONES.containsKey(timeZoneName);
+  }
+
+  /**
+   * @return the zone of the given name, or null if the name is not a valid time zone
+   */
+  public static ZoneId zoneId(String timeZoneName) {
+    return ZONES.get(timeZoneName);
+  }
+
+}
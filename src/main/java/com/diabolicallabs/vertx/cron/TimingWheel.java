@@ -0,0 +1,173 @@
+package com.diabolicallabs.vertx.cron;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel. Time is divided into ticks of {@code tickMillis}; each level has 64
+ * slots and covers 64 times the span of the level below it. A node is placed on the lowest level
+ * whose span reaches its deadline and is cascaded down as the wheel turns, so scheduling and
+ * cancelling are O(1) and a node never moves more than once per level.
+ *
+ * <p>Nodes are intrusive and reusable: the same node can be rescheduled after it expires without
+ * any allocation. The wheel is not thread safe.
+ */
+final class TimingWheel<T> {
+
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final int SLOT_MASK = SLOTS - 1;
+  private static final int LEVELS = 6;
+  private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+  static final class Node<T> {
+
+    private final T value;
+    private long deadline;
+    private long expiresTick;
+    private Node<T> prev;
+    private Node<T> next;
+
+    Node(T value) {
+      this.value = value;
+    }
+
+    T value() {
+      return value;
+    }
+
+    long deadline() {
+      return deadline;
+    }
+
+    boolean isScheduled() {
+      return next != null;
+    }
+  }
+
+  private final long tickMillis;
+  private final Node<T>[] slots;
+  private long currentTick;
+  private int size;
+
+  @SuppressWarnings("unchecked")
+  TimingWheel(long tickMillis, long startMillis) {
+
+    if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+
+    this.tickMillis = tickMillis;
+    this.currentTick = startMillis / tickMillis;
+    this.slots = new Node[LEVELS * SLOTS];
+    for (int i = 0; i < slots.length; i++) {
+      Node<T> head = new Node<>(null);
+      head.prev = head;
+      head.next = head;
+      slots[i] = head;
+    }
+  }
+
+  /**
+   * Schedules the node to expire on the first tick at or after the deadline. A node that is already
+   * scheduled is moved.
+   */
+  void schedule(Node<T> node, long deadline) {
+
+    if (node.isScheduled()) cancel(node);
+
+    node.deadline = deadline;
+    node.expiresTick = Math.floorDiv(deadline + tickMillis - 1, tickMillis);
+    place(node, currentTick + 1);
+    size++;
+  }
+
+  boolean cancel(Node<T> node) {
+
+    if (!node.isScheduled()) return false;
+
+    unlink(node);
+    size--;
+    return true;
+  }
+
+  /**
+   * Turns the wheel up to the tick containing {@code nowMillis}, handing every expired node to the
+   * consumer. The consumer may schedule or cancel nodes.
+   */
+  void advance(long nowMillis, Consumer<Node<T>> expired) {
+
+    long targetTick = Math.floorDiv(nowMillis, tickMillis);
+    if (size == 0 && currentTick < targetTick) currentTick = targetTick;
+
+    while (currentTick < targetTick) {
+      long tick = currentTick + 1;
+
+      for (int level = 1; level < LEVELS; level++) {
+        if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0) break;
+        cascade(level, (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK), tick);
+      }
+
+      Node<T> head = slots[(int) (tick & SLOT_MASK)];
+      currentTick = tick;
+      while (head.next != head) {
+        Node<T> node = head.next;
+        unlink(node);
+        size--;
+        expired.accept(node);
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  long tickMillis() {
+    return tickMillis;
+  }
+
+  private void cascade(int level, int index, long base) {
+
+    Node<T> head = slots[level * SLOTS + index];
+    Node<T> node = head.next;
+    head.prev = head;
+    head.next = head;
+    while (node != head) {
+      Node<T> following = node.next;
+      place(node, base);
+      node = following;
+    }
+  }
+
+  /**
+   * Links the node into the slot that will be cascaded or expired at the right time, relative to
+   * {@code base}, the next tick that will be processed.
+   */
+  private void place(Node<T> node, long base) {
+
+    long expires = Math.max(node.expiresTick, base);
+    long delta = expires - base;
+    if (delta > MAX_DELTA) {
+      delta = MAX_DELTA;
+      expires = base + MAX_DELTA;
+    }
+
+    int level = 0;
+    while (delta >= (1L << (SLOT_BITS * (level + 1)))) {
+      level++;
+    }
+
+    Node<T> head = slots[level * SLOTS + (int) ((expires >>> (SLOT_BITS * level)) & SLOT_MASK)];
+    node.prev = head.prev;
+    node.next = head;
+    head.prev.next = node;
+    head.prev = node;
+  }
+
+  private void unlink(Node<T> node) {
+
+    node.prev.next = node.next;
+    node.next.prev = node.prev;
+    node.prev = null;
+    node.next = null;
+  }
+
+}
@@ -0,0 +1,22 @@
+package com.diabolicallabs.vertx.cron;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A clock that can be stepped, like the system clock, so precise timing only reads it once, to
+ * start a {@link MonotonicClock} from.
+ */
+final class WallClock implements CronClock {
+
+  private final LongSupplier millis;
+
+  WallClock(LongSupplier millis) {
+    this.millis = millis;
+  }
+
+  @Override
+  public long millis() {
+    return millis.getAsLong();
+  }
+
+}
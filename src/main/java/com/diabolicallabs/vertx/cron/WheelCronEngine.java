@@ -0,0 +1,135 @@
+package com.diabolicallabs.vertx.cron;
+
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.shareddata.LocalMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every schedule in a single {@link TimingWheel} that is turned by one periodic Vert.x timer,
+ * so the number of timers does not grow with the number of schedules.
+ *
+ * <p>When precise, the wheel is turned by a {@link MonotonicClock} and each fire is planned from the
+ * one before it, so fires that came due during a stall are all made, late, instead of skipped.
+ *
+ * <p>Given a scheduler, the wheel is turned by it rather than by a Vert.x timer, and reads the time
+ * off the given clock, so it can run on simulated time.
+ */
+class WheelCronEngine implements CronEngine {
+
+  Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Vertx vertx;
+  private final LocalMap<String, JsonObject> registry;
+  private final FireHandler fireHandler;
+  private final TimingWheel<CronSchedule> wheel;
+  private final Scheduler scheduler;
+  private final CronClock clock;
+  private final boolean precise;
+  private final Map<String, TimingWheel.Node<CronSchedule>> nodes = new HashMap<>();
+  private long timerId = -1;
+  private Disposable ticks;
+
+  /**
+   * @param scheduler the scheduler to turn the wheel with, or null to use a Vert.x timer
+   */
+  WheelCronEngine(Vertx vertx, Scheduler scheduler, CronClock clock, long tickMillis, boolean precise, LocalMap<String, JsonObject> registry, FireHandler fireHandler) {
+    this.vertx = vertx;
+    this.scheduler = scheduler;
+    this.registry = registry;
+    this.fireHandler = fireHandler;
+    this.precise = precise;
+    this.clock = precise ? MonotonicClock.reading(clock) : clock;
+    this.wheel = new TimingWheel<>(tickMillis, this.clock.millis());
+  }
+
+  @Override
+  public void start() {
+
+    if (scheduler != null) {
+      ticks = scheduler.schedulePeriodicallyDirect(() -> wheel.advance(clock.millis(), this::expired), wheel.tickMillis(), wheel.tickMillis(), TimeUnit.MILLISECONDS);
+    } else {
+      timerId = vertx.setPeriodic(wheel.tickMillis(), id -> wheel.advance(clock.millis(), this::expired));
+    }
+  }
+
+  @Override
+  public void schedule(CronSchedule schedule) {
+    schedule(schedule, clock.millis());
+  }
+
+  @Override
+  public void scheduleAll(Collection<CronSchedule> schedules) {
+
+    long now = clock.millis();
+    for (CronSchedule schedule : schedules) {
+      schedule(schedule, now);
+    }
+  }
+
+  @Override
+  public void cancel(String id) {
+
+    TimingWheel.Node<CronSchedule> node = nodes.remove(id);
+    if (node != null) wheel.cancel(node);
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  @Override
+  public void stop() {
+
+    if (timerId != -1) vertx.cancelTimer(timerId);
+    if (ticks != null) ticks.dispose();
+    new ArrayList<>(nodes.keySet()).forEach(this::cancel);
+  }
+
+  private void schedule(CronSchedule schedule, long now) {
+
+    long next = schedule.nextFireAfter(now - schedule.offsetMillis);
+    if (next < 0) return;
+
+    TimingWheel.Node<CronSchedule> node = new TimingWheel.Node<>(schedule);
+    nodes.put(schedule.id, node);
+    wheel.schedule(node, next + schedule.offsetMillis);
+  }
+
+  private void expired(TimingWheel.Node<CronSchedule> node) {
+
+    CronSchedule schedule = node.value();
+    if (schedule.replaced || !registry.containsKey(schedule.id)) {
+      // Cancelled or updated through another instance sharing the registry
+      if (nodes.get(schedule.id) == node) nodes.remove(schedule.id);
+      return;
+    }
+
+    try {
+      fireHandler.fire(schedule, node.deadline() - schedule.offsetMillis);
+    } catch (RuntimeException e) {
+      logger.error("Unable to fire cronspec " + schedule.cronExpression + " for address " + schedule.address, e);
+    }
+
+    if (nodes.get(schedule.id) != node) return;
+
+    long after = precise ? node.deadline() : Math.max(node.deadline(), clock.millis());
+    long next = schedule.nextFireAfter(after - schedule.offsetMillis);
+    if (next < 0) {
+      nodes.remove(schedule.id);
+    } else {
+      wheel.schedule(node, next + schedule.offsetMillis);
+    }
+  }
+
+}
@@ -0,0 +1,131 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronBatchTest {
+
+  private static final String BATCH_ADDRESS = "batch.schedule.batch";
+  private static final String CANCEL_BATCH_ADDRESS = "batch.cancel.batch";
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject().put("address_base", "batch");
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(id -> {
+      System.out.println("CronEventSchedulerVertical deployment id: " + id);
+    }));
+  }
+
+  @Test
+  public void testBatchSchedule(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger hits = new AtomicInteger(0);
+    rule.vertx().eventBus().consumer(address, handler -> hits.incrementAndGet());
+
+    JsonArray batch = new JsonArray()
+      .add(event(address).put("cron_id", "first"))
+      .add(event(address).put("cron_expression", "SQUID"))
+      .add(event(address).put("cron_id", "first"))
+      .add("not a schedule")
+      .add(event(address));
+
+    rule.vertx().eventBus().request(BATCH_ADDRESS, batch, context.asyncAssertSuccess(reply -> {
+
+      JsonArray results = (JsonArray) reply.body();
+      context.assertEquals(5, results.size());
+      context.assertEquals("first", results.getJsonObject(0).getString("cron_id"));
+      context.assertEquals("Invalid cronspec SQUID", results.getJsonObject(1).getString("error"));
+      context.assertEquals("cron_id alredy exists: first", results.getJsonObject(2).getString("error"));
+      context.assertEquals("Message must be a JSON object", results.getJsonObject(3).getString("error"));
+      context.assertNotNull(results.getJsonObject(4).getString("cron_id"));
+
+      rule.vertx().setTimer(1500, timerHandler -> {
+        // Both valid schedules fire every second
+        context.assertTrue(hits.get() >= 2);
+        async.complete();
+      });
+    }));
+  }
+
+  @Test
+  public void testBatchCancel(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger hits = new AtomicInteger(0);
+    rule.vertx().eventBus().consumer(address, handler -> hits.incrementAndGet());
+
+    JsonArray batch = new JsonArray();
+    for (int i = 0; i < 100; i++) {
+      batch.add(event(address));
+    }
+
+    rule.vertx().eventBus().request(BATCH_ADDRESS, batch, context.asyncAssertSuccess(reply -> {
+
+      JsonArray ids = new JsonArray();
+      ((JsonArray) reply.body()).forEach(result -> ids.add(((JsonObject) result).getString("cron_id")));
+      ids.add("unknown");
+
+      rule.vertx().eventBus().request(CANCEL_BATCH_ADDRESS, ids, context.asyncAssertSuccess(cancelReply -> {
+
+        JsonArray results = (JsonArray) cancelReply.body();
+        context.assertEquals(101, results.size());
+        for (int i = 0; i < 100; i++) {
+          context.assertTrue(results.getJsonObject(i).getBoolean("cancelled"));
+        }
+        context.assertFalse(results.getJsonObject(100).getBoolean("cancelled"));
+
+        hits.set(0);
+        rule.vertx().setTimer(1500, timerHandler -> {
+          context.assertEquals(0, hits.get());
+          async.complete();
+        });
+      }));
+    }));
+  }
+
+  @Test
+  public void testBatchNotArray(TestContext context) {
+
+    Async async = context.async();
+
+    rule.vertx().eventBus().request(BATCH_ADDRESS, event("squid"), handler -> {
+      if (handler.succeeded()) context.fail("Should have failed due to a message that is not an array");
+      if (handler.failed()) {
+        context.assertEquals("Message must be a JSON array", handler.cause().getMessage());
+      }
+      async.complete();
+    });
+  }
+
+  private JsonObject event(String address) {
+
+    return new JsonObject()
+      .put("cron_expression", "*/1 * * * * ?")
+      .put("address", address)
+      .put("action", "publish");
+  }
+}
@@ -0,0 +1,100 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronBatchWindowTest {
+
+  private static final int SCHEDULES = 5;
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject().put("address_base", "window").put("batch_window_ms", 200);
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testRepliesFannedOut(TestContext context) {
+
+    Async async = context.async(SCHEDULES);
+
+    String address = UUID.randomUUID().toString();
+    AtomicBoolean checked = new AtomicBoolean();
+
+    // Every fire of the same second arrives in one message, and is answered in order
+    rule.vertx().eventBus().<JsonArray>consumer(address, handler -> {
+      JsonArray fires = handler.body();
+      if (checked.compareAndSet(false, true)) context.assertEquals(SCHEDULES, fires.size());
+
+      JsonArray replies = new JsonArray();
+      for (int index = 0; index < fires.size(); index++) {
+        JsonObject fire = fires.getJsonObject(index);
+        replies.add(fire.getString("cron_id") + ":" + fire.getString("message"));
+      }
+      handler.reply(replies);
+    });
+
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < SCHEDULES; index++) {
+      String id = "window-" + index;
+      String resultAddress = UUID.randomUUID().toString();
+      AtomicBoolean answered = new AtomicBoolean();
+      rule.vertx().eventBus().consumer(resultAddress, result -> {
+        context.assertEquals(id + ":message " + id, result.body());
+        if (answered.compareAndSet(false, true)) async.countDown();
+      });
+
+      batch.add(new JsonObject()
+        .put("cron_id", id)
+        .put("cron_expression", "*/1 * * * * ?")
+        .put("address", address)
+        .put("message", "message " + id)
+        .put("result_address", resultAddress));
+    }
+
+    rule.vertx().eventBus().request("window.schedule.batch", batch, context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testPublishBatched(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicBoolean received = new AtomicBoolean();
+    rule.vertx().eventBus().<JsonArray>consumer(address, handler -> {
+      if (!received.compareAndSet(false, true)) return;
+      context.assertEquals(SCHEDULES, handler.body().size());
+      async.complete();
+    });
+
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < SCHEDULES; index++) {
+      batch.add(new JsonObject()
+        .put("cron_expression", "*/1 * * * * ?")
+        .put("address", address)
+        .put("action", "publish"));
+    }
+
+    rule.vertx().eventBus().request("window.schedule.batch", batch, context.asyncAssertSuccess());
+  }
+}
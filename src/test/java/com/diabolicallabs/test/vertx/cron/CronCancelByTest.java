@@ -0,0 +1,139 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronCancelByTest {
+
+  @ClassRule
+  public static TemporaryFolder folder = new TemporaryFolder();
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Before
+  public void before(TestContext context) {
+
+    Async async = context.async();
+
+    JsonObject config = new JsonObject().put("address_base", "tenants");
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config), context.asyncAssertSuccess(id -> {
+
+      // Three events for each of two tenants, the first of each tagged for billing
+      JsonArray batch = new JsonArray();
+      for (int tenant = 1; tenant <= 2; tenant++) {
+        for (int index = 0; index < 3; index++) {
+          JsonObject event = new JsonObject()
+            .put("cron_id", "tenant-" + tenant + "-" + index)
+            .put("cron_expression", "0 0 0 1 1 ?")
+            .put("address", "tenants.job." + index)
+            .put("group", "tenant-" + tenant);
+          if (index == 0) event.put("tags", new JsonArray().add("billing").add("nightly"));
+          batch.add(event);
+        }
+      }
+      rule.vertx().eventBus().request("tenants.schedule.batch", batch, context.asyncAssertSuccess(reply -> async.complete()));
+    }));
+  }
+
+  @Test
+  public void testCancelByGroup(TestContext context) {
+
+    Async async = context.async();
+
+    rule.vertx().eventBus().<JsonObject>request("tenants.cancel.by", new JsonObject().put("group", "tenant-1"), context.asyncAssertSuccess(cancelled -> {
+      context.assertEquals(3, cancelled.body().getInteger("cancelled"));
+
+      rule.vertx().eventBus().<JsonObject>request("tenants.list", null, context.asyncAssertSuccess(listed -> {
+        JsonArray schedules = listed.body().getJsonArray("schedules");
+        context.assertEquals(3, schedules.size());
+        schedules.forEach(entry -> context.assertEquals("tenant-2", ((JsonObject) entry).getString("group")));
+
+        rule.vertx().eventBus().request("tenants.get", "tenant-1-0", context.asyncAssertFailure(missing -> async.complete()));
+      }));
+    }));
+  }
+
+  @Test
+  public void testCancelByTagAndAddress(TestContext context) {
+
+    Async async = context.async();
+
+    JsonObject filter = new JsonObject().put("tag", "billing").put("address", "tenants.job.0").put("group", "tenant-2");
+    rule.vertx().eventBus().<JsonObject>request("tenants.cancel.by", filter, context.asyncAssertSuccess(cancelled -> {
+      context.assertEquals(1, cancelled.body().getInteger("cancelled"));
+
+      rule.vertx().eventBus().<JsonObject>request("tenants.cancel.by", new JsonObject().put("tag", "billing"), context.asyncAssertSuccess(rest -> {
+        context.assertEquals(1, rest.body().getInteger("cancelled"));
+
+        rule.vertx().eventBus().<JsonObject>request("tenants.cancel.by", new JsonObject().put("tag", "billing"), context.asyncAssertSuccess(none -> {
+          context.assertEquals(0, none.body().getInteger("cancelled"));
+          async.complete();
+        }));
+      }));
+    }));
+  }
+
+  @Test
+  public void testCancelPending(TestContext context) throws Exception {
+
+    Async async = context.async();
+
+    JsonObject config = new JsonObject()
+      .put("address_base", "stored")
+      .put("store", new JsonObject().put("type", "snapshot").put("path", folder.newFolder().toPath().resolve("schedules").toString()));
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    // Not due for months, so they are left in the snapshot on restart
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < 3; index++) {
+      batch.add(new JsonObject().put("cron_id", "stored-" + index).put("cron_expression", "0 0 0 1 1 ?").put("address", "stored.job").put("group", "stored"));
+    }
+    batch.getJsonObject(0).put("tags", new JsonArray().add("billing"));
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(first ->
+      rule.vertx().eventBus().request("stored.schedule.batch", batch, context.asyncAssertSuccess(scheduled ->
+        rule.vertx().undeploy(first, context.asyncAssertSuccess(undeployed -> {
+          rule.vertx().sharedData().getLocalMap("stored.cron.ids").clear();
+          rule.vertx().sharedData().getLocalMap("stored.cron.ids.index").clear();
+
+          rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(second ->
+            rule.vertx().eventBus().<JsonObject>request("stored.cancel.by", new JsonObject().put("tag", "billing").put("address", "stored.job"), context.asyncAssertSuccess(tagged -> {
+              context.assertEquals(1, tagged.body().getInteger("cancelled"));
+
+              rule.vertx().eventBus().<JsonObject>request("stored.cancel.by", new JsonObject().put("group", "stored"), context.asyncAssertSuccess(cancelled -> {
+                context.assertEquals(2, cancelled.body().getInteger("cancelled"));
+
+                // The ids are free again
+                JsonObject event = batch.getJsonObject(0).copy().put("cron_expression", "0 0 0 1 2 ?");
+                rule.vertx().eventBus().request("stored.schedule", event, context.asyncAssertSuccess(rescheduled -> async.complete()));
+              }));
+            }))));
+        }))))));
+  }
+
+  @Test
+  public void testInvalid(TestContext context) {
+
+    rule.vertx().eventBus().request("tenants.cancel.by", new JsonObject(), context.asyncAssertFailure());
+
+    JsonObject event = new JsonObject()
+      .put("cron_expression", "0 0 0 1 1 ?")
+      .put("address", "tenants.job")
+      .put("tags", new JsonArray().add(1));
+    rule.vertx().eventBus().request("tenants.schedule", event, context.asyncAssertFailure());
+  }
+
+}
@@ -0,0 +1,173 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.reactivex.core.RxHelper;
+import io.vertx.reactivex.core.Vertx;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronCancelTest {
+
+  private static final String BASE_ADDRESS = "cancel.schedule";
+  private static final String CANCEL_ADDRESS = "cancel.cancel";
+  private static final int SCHEDULES = 1000;
+
+  private CountingScheduler scheduler;
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Before
+  public void before(TestContext context) {
+
+    scheduler = new CountingScheduler(RxHelper.scheduler(new Vertx(rule.vertx())));
+
+    JsonObject config = new JsonObject().put("address_base", "cancel");
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    rule.vertx().deployVerticle(new CronEventSchedulerVertical(scheduler), options, context.asyncAssertSuccess(id -> {
+      System.out.println("CronEventSchedulerVertical deployment id: " + id);
+    }));
+  }
+
+  @Test
+  public void testMassCancelReleasesTimers(TestContext context) {
+
+    Async async = context.async();
+
+    // Yearly schedules would keep their timers for months if cancel waited for the next fire
+    List<Future<String>> scheduled = new ArrayList<>();
+    for (int i = 0; i < SCHEDULES; i++) {
+      JsonObject event = new JsonObject()
+        .put("cron_expression", "0 0 0 1 1 ?")
+        .put("address", UUID.randomUUID().toString());
+      scheduled.add(rule.vertx().eventBus().request(BASE_ADDRESS, event).map(reply -> (String) reply.body()));
+    }
+
+    Future.all(scheduled).onComplete(context.asyncAssertSuccess(ids -> {
+
+      context.assertEquals(SCHEDULES, scheduler.live());
+
+      List<Future<Message<Object>>> cancelled = new ArrayList<>();
+      for (int i = 0; i < SCHEDULES; i++) {
+        cancelled.add(rule.vertx().eventBus().request(CANCEL_ADDRESS, ids.resultAt(i)));
+      }
+
+      Future.all(cancelled).onComplete(context.asyncAssertSuccess(done -> {
+        context.assertEquals(0, scheduler.live());
+        async.complete();
+      }));
+    }));
+  }
+
+  @Test
+  public void testCancelledScheduleDoesNotFire(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger hits = new AtomicInteger(0);
+
+    rule.vertx().eventBus().consumer(address, handler -> hits.incrementAndGet());
+
+    JsonObject event = new JsonObject()
+      .put("cron_expression", "*/1 * * * * ?")
+      .put("address", address);
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, context.asyncAssertSuccess(reply -> {
+      rule.vertx().eventBus().request(CANCEL_ADDRESS, reply.body(), context.asyncAssertSuccess(cancelled -> {
+        context.assertEquals(0, scheduler.live());
+        rule.vertx().setTimer(2000, timerHandler -> {
+          context.assertEquals(0, hits.get());
+          async.complete();
+        });
+      }));
+    }));
+  }
+
+  /**
+   * Counts the tasks that are waiting on a timer of the wrapped scheduler.
+   */
+  private static class CountingScheduler extends Scheduler {
+
+    private final Scheduler delegate;
+    private final AtomicInteger live = new AtomicInteger();
+
+    CountingScheduler(Scheduler delegate) {
+      this.delegate = delegate;
+    }
+
+    int live() {
+      return live.get();
+    }
+
+    @Override
+    public Worker createWorker() {
+
+      Worker worker = delegate.createWorker();
+
+      return new Worker() {
+
+        private final List<AtomicBoolean> pending = new ArrayList<>();
+
+        @Override
+        public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+
+          AtomicBoolean done = new AtomicBoolean(false);
+          live.incrementAndGet();
+          pending.add(done);
+
+          Disposable task = worker.schedule(() -> {
+            if (done.compareAndSet(false, true)) live.decrementAndGet();
+            run.run();
+          }, delay, unit);
+
+          return new Disposable() {
+            @Override
+            public void dispose() {
+              if (done.compareAndSet(false, true)) live.decrementAndGet();
+              task.dispose();
+            }
+
+            @Override
+            public boolean isDisposed() {
+              return task.isDisposed();
+            }
+          };
+        }
+
+        @Override
+        public void dispose() {
+          pending.forEach(done -> {
+            if (done.compareAndSet(false, true)) live.decrementAndGet();
+          });
+          worker.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+          return worker.isDisposed();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronClock;
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronClockStepTest {
+
+  private static final int FIRES_AFTER_STEP = 3;
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Test
+  public void testRxStepForward(TestContext context) {
+    testStep(context, new JsonObject().put("address_base", "step.rx.forward"), TimeUnit.MINUTES.toMillis(10));
+  }
+
+  @Test
+  public void testWheelStepForward(TestContext context) {
+    testStep(context, new JsonObject().put("address_base", "step.wheel.forward").put("engine", "wheel"), TimeUnit.MINUTES.toMillis(10));
+  }
+
+  @Test
+  public void testRxStepBack(TestContext context) {
+    testStep(context, new JsonObject().put("address_base", "step.rx.back"), -TimeUnit.MINUTES.toMillis(10));
+  }
+
+  /**
+   * Steps the wall clock once the schedule has fired. With precise timing, the fires are planned
+   * and judged on a monotonic clock, so they are neither dropped as misfires nor made twice.
+   */
+  private void testStep(TestContext context, JsonObject config, long stepMillis) {
+
+    Async async = context.async();
+
+    AtomicLong step = new AtomicLong();
+    CronClock wall = CronClock.wall(() -> System.currentTimeMillis() + step.get());
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger afterStep = new AtomicInteger();
+    AtomicLong last = new AtomicLong();
+    rule.vertx().eventBus().consumer(address, message -> {
+      long now = System.currentTimeMillis();
+      if (step.get() == 0) {
+        step.set(stepMillis);
+      } else {
+        context.assertInRange(1000, now - last.get(), 500);
+        if (afterStep.incrementAndGet() == FIRES_AFTER_STEP) async.complete();
+      }
+      last.set(now);
+    });
+
+    JsonObject event = new JsonObject()
+      .put("cron_expression", "* * * * * ?")
+      .put("address", address)
+      .put("action", "publish")
+      .put("misfire_policy", "skip");
+
+    config.put("timing", "precise");
+    CronEventSchedulerVertical vertical = new CronEventSchedulerVertical(null, wall);
+    rule.vertx().deployVerticle(vertical, new DeploymentOptions().setConfig(config), context.asyncAssertSuccess(id ->
+      rule.vertx().eventBus().request(config.getString("address_base") + ".schedule", event, context.asyncAssertSuccess())));
+  }
+
+}
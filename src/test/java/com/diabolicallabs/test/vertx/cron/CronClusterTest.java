@@ -0,0 +1,147 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronClusterTest {
+
+  private static final String BASE_ADDRESS = "cluster.schedule";
+  private static final int SCHEDULES = 20;
+
+  private Supplier<Vertx> supplier = () -> {
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicReference<Vertx> vertx = new AtomicReference<>();
+    Vertx.clusteredVertx(new VertxOptions(), handler -> {
+      if (handler.succeeded()) {
+        vertx.set(handler.result());
+        latch.countDown();
+      } else {
+        throw new RuntimeException("Unable to create clustered Vertx");
+      }
+    });
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    return vertx.get();
+  };
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext(supplier);
+
+  @Rule
+  public RunTestOnContext rule2 = new RunTestOnContext(supplier);
+
+  private String deployment2;
+
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject()
+      .put("address_base", "cluster")
+      .put("cluster_mode", true)
+      .put("heartbeat_ms", 200);
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    Async async = context.async();
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(id -> {
+      rule2.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(id2 -> {
+        deployment2 = id2;
+        // Let both nodes hear each other's heartbeats
+        rule.vertx().setTimer(1000, timerHandler -> async.complete());
+      }));
+    }));
+  }
+
+  @Test
+  public void testEachScheduleFiresOnce(TestContext context) {
+
+    Async async = context.async();
+
+    List<AtomicInteger> hits = new ArrayList<>();
+    JsonArray batch = batch(hits);
+
+    rule.vertx().eventBus().request(BASE_ADDRESS + ".batch", batch, context.asyncAssertSuccess(reply -> {
+
+      JsonArray ids = new JsonArray();
+      ((JsonArray) reply.body()).forEach(result -> ids.add(((JsonObject) result).getString("cron_id")));
+      context.assertEquals(SCHEDULES, ids.size());
+
+      rule.vertx().setTimer(2500, timerHandler -> {
+
+        // Only the owning node fires each schedule
+        hits.forEach(count -> context.assertTrue(count.get() >= 1 && count.get() <= 3, "fired " + count.get() + " times"));
+
+        // Cancelled through the other node, which forwards each id to its owner
+        rule2.vertx().eventBus().request("cluster.cancel.batch", ids, context.asyncAssertSuccess(cancelReply -> {
+
+          ((JsonArray) cancelReply.body()).forEach(result -> context.assertTrue(((JsonObject) result).getBoolean("cancelled")));
+          hits.forEach(count -> count.set(0));
+
+          rule.vertx().setTimer(1500, cancelTimer -> {
+            hits.forEach(count -> context.assertEquals(0, count.get()));
+            async.complete();
+          });
+        }));
+      });
+    }));
+  }
+
+  @Test
+  public void testRebalanceWhenNodeLeaves(TestContext context) {
+
+    Async async = context.async();
+
+    List<AtomicInteger> hits = new ArrayList<>();
+    JsonArray batch = batch(hits);
+
+    rule2.vertx().eventBus().request(BASE_ADDRESS + ".batch", batch, context.asyncAssertSuccess(reply -> {
+      rule2.vertx().undeploy(deployment2, context.asyncAssertSuccess(undeployed -> {
+
+        hits.forEach(count -> count.set(0));
+        rule.vertx().setTimer(2000, timerHandler -> {
+          // The remaining node has claimed the schedules of the one that left
+          hits.forEach(count -> context.assertTrue(count.get() >= 1));
+          async.complete();
+        });
+      }));
+    }));
+  }
+
+  private JsonArray batch(List<AtomicInteger> hits) {
+
+    JsonArray batch = new JsonArray();
+    for (int i = 0; i < SCHEDULES; i++) {
+      String address = UUID.randomUUID().toString();
+      AtomicInteger count = new AtomicInteger(0);
+      hits.add(count);
+      rule.vertx().eventBus().consumer(address, handler -> count.incrementAndGet());
+      batch.add(new JsonObject()
+        .put("cron_expression", "*/1 * * * * ?")
+        .put("address", address)
+        .put("action", "publish"));
+    }
+    return batch;
+  }
+}
@@ -0,0 +1,117 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronDispatchTest {
+
+  private static final int FIRES = 2;
+
+  // Enough event loops for the vertical and each partition to have one of their own
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext(new VertxOptions().setEventLoopPoolSize(16));
+
+  @Test
+  public void testPartitioned(TestContext context) {
+    testDispatch(context, new JsonObject().put("dispatch", "partitioned").put("dispatch_partitions", 4), true);
+  }
+
+  @Test
+  public void testWorker(TestContext context) {
+    testDispatch(context, new JsonObject().put("dispatch", "worker").put("dispatch_pool_size", 4), false);
+  }
+
+  @Test
+  public void testVirtual(TestContext context) {
+    // Falls back to worker threads before Java 21
+    testDispatch(context, new JsonObject().put("dispatch", "virtual"), false);
+  }
+
+  @Test
+  public void testBadDispatch(TestContext context) {
+
+    JsonObject config = new JsonObject().put("address_base", "dispatch").put("dispatch", "SQUID");
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config), context.asyncAssertFailure(cause ->
+      context.assertEquals("dispatch must be 'event_loop', 'partitioned', 'worker' or 'virtual'", cause.getMessage())
+    ));
+  }
+
+  /**
+   * Every schedule's request is delivered, and its reply forwarded to the result address, from a
+   * thread other than the event loop timing the fires. Interceptors run on the thread sending, and
+   * on that of the consumer receiving.
+   *
+   * @param pinned true if each schedule is always delivered from the same thread
+   */
+  private void testDispatch(TestContext context, JsonObject config, boolean pinned) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    String resultAddress = UUID.randomUUID().toString();
+    rule.vertx().eventBus().consumer(address, handler -> handler.reply(handler.body()));
+
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < 20; index++) {
+      batch.add(new JsonObject()
+        .put("cron_expression", "*/1 * * * * ?")
+        .put("address", address)
+        .put("message", "schedule " + index)
+        .put("result_address", resultAddress));
+    }
+
+    AtomicReference<Thread> timing = new AtomicReference<>();
+    rule.vertx().eventBus().addInboundInterceptor(delivery -> {
+      if (delivery.message().address().equals("dispatch.schedule.batch")) timing.set(Thread.currentThread());
+      delivery.next();
+    });
+
+    Map<Object, Set<Thread>> senders = new ConcurrentHashMap<>();
+    Map<Object, Integer> sends = new ConcurrentHashMap<>();
+    rule.vertx().eventBus().addOutboundInterceptor(delivery -> {
+      if (delivery.message().address().equals(address)) {
+        Object body = delivery.message().body();
+        senders.computeIfAbsent(body, key -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+        sends.merge(body, 1, Integer::sum);
+      }
+      delivery.next();
+    });
+
+    Set<Object> results = ConcurrentHashMap.newKeySet();
+    AtomicBoolean checked = new AtomicBoolean();
+    rule.vertx().eventBus().consumer(resultAddress, result -> {
+      results.add(result.body());
+      if (results.size() < batch.size() || sends.values().stream().anyMatch(count -> count < FIRES)) return;
+      if (!checked.compareAndSet(false, true)) return;
+
+      context.assertNotNull(timing.get());
+      senders.forEach((body, threads) -> {
+        context.assertFalse(threads.contains(timing.get()), "Delivered " + body + " on the timing event loop");
+        if (pinned) context.assertEquals(1, threads.size(), "Delivered " + body + " from " + threads);
+      });
+      async.complete();
+    });
+
+    config.put("address_base", "dispatch");
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config), context.asyncAssertSuccess(id ->
+      rule.vertx().eventBus().request("dispatch.schedule.batch", batch, context.asyncAssertSuccess())
+    ));
+  }
+}
@@ -0,0 +1,97 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import com.diabolicallabs.vertx.cron.EncodedMessageCodec;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronEncodedMessageTest {
+
+  private static final String BASE_ADDRESS = "encoded.schedule";
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject().put("address_base", "encoded").put("encoded_message_cache_bytes", 1024);
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testWireRoundTrip(TestContext context) {
+
+    EncodedMessageCodec codec = new EncodedMessageCodec();
+    Object[] messages = {
+      new JsonObject().put("name", "squid").put("arms", 10),
+      new JsonArray().add("squid").add(10),
+      "squid é"
+    };
+
+    for (Object message : messages) {
+      Buffer wire = Buffer.buffer().appendString("header");
+      codec.encodeToWire(wire, EncodedMessageCodec.encode(message));
+      context.assertEquals(message, codec.decodeFromWire(6, wire));
+    }
+  }
+
+  @Test
+  public void testEncodedSend(TestContext context) {
+
+    Async async = context.async(2);
+
+    String address = UUID.randomUUID().toString();
+    JsonObject message = new JsonObject().put("payload", "squid");
+
+    rule.vertx().eventBus().consumer(address, handler -> {
+      context.assertEquals(message, handler.body());
+      handler.reply("ok");
+      async.countDown();
+    });
+
+    JsonObject event = new JsonObject()
+      .put("cron_expression", "*/1 * * * * ?")
+      .put("address", address)
+      .put("message", message);
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testMessagesOverTheLimit(TestContext context) {
+
+    Async async = context.async(4);
+
+    // Each encoding is larger than the cache, so every fire encodes the message again
+    String address = UUID.randomUUID().toString();
+    JsonObject message = new JsonObject().put("payload", new String(new char[2048]).replace('\0', 'x'));
+
+    rule.vertx().eventBus().consumer(address, handler -> {
+      context.assertEquals(message, handler.body());
+      async.countDown();
+    });
+
+    for (int index = 0; index < 2; index++) {
+      JsonObject event = new JsonObject()
+        .put("cron_expression", "*/1 * * * * ?")
+        .put("address", address)
+        .put("message", message)
+        .put("action", "publish");
+      rule.vertx().eventBus().request(BASE_ADDRESS, event, context.asyncAssertSuccess());
+    }
+  }
+}
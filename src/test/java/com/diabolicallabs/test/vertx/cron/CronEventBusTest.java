@@ -559,6 +559,21 @@ public class CronEventBusTest {
     });
   }
 
+  @Test
+  public void testBadMisfirePolicy(TestContext context) {
+
+    Async async = context.async();
+
+    JsonObject event = event().put("misfire_policy", "SQUID");
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, handler -> {
+      if (handler.succeeded()) context.fail("Should have failed due to bad misfire policy");
+      if (handler.failed()) {
+        context.assertEquals("misfire_policy must be 'fire_once_now', 'fire_all' or 'skip'", handler.cause().getMessage());
+      }
+      async.complete();
+    });
+  }
+
   private JsonObject event() {
 
     JsonObject event = new JsonObject()
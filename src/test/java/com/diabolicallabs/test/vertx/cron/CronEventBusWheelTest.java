@@ -0,0 +1,223 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronEventBusWheelTest {
+
+  private static final String BASE_ADDRESS = "wheel.schedule";
+  private static final String CANCEL_ADDRESS = "wheel.cancel";
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject().put("address_base", "wheel").put("engine", "wheel");
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(id -> {
+      System.out.println("CronEventSchedulerVertical deployment id: " + id);
+    }));
+  }
+
+  @Test
+  public void testSend(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    JsonObject event = event().put("address", address);
+    AtomicBoolean gotit = new AtomicBoolean(false);
+
+    rule.vertx().eventBus().consumer(address, handler -> {
+      gotit.set(true);
+    });
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, handler -> {
+      if (handler.failed()) context.fail(handler.cause());
+    });
+
+    rule.vertx().setTimer(1000 * 2, timerHandler -> {
+      context.assertTrue(gotit.get());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testPublish(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    JsonObject event = event().put("address", address).put("action", "publish");
+
+    AtomicBoolean got1 = new AtomicBoolean(false);
+    AtomicBoolean got2 = new AtomicBoolean(false);
+
+    rule.vertx().eventBus().consumer(address, handler -> {
+      got1.set(true);
+    });
+    rule.vertx().eventBus().consumer(address, handler -> {
+      got2.set(true);
+    });
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, handler -> {
+      if (handler.failed()) context.fail(handler.cause());
+    });
+
+    rule.vertx().setTimer(1000 * 2, timerHandler -> {
+      context.assertTrue(got1.get());
+      context.assertTrue(got2.get());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testSendWithReply(TestContext context) {
+
+    Async async = context.async();
+
+    String sendAddress = UUID.randomUUID().toString();
+    String replyAddress = UUID.randomUUID().toString();
+
+    JsonObject event = event().put("address", sendAddress).put("result_address", replyAddress);
+
+    rule.vertx().eventBus().consumer(sendAddress, handler -> {
+      handler.reply("Squid");
+    });
+
+    rule.vertx().eventBus().consumer(replyAddress, handler -> {
+      context.assertEquals("Squid", handler.body());
+      async.complete();
+    });
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, handler -> {
+      if (handler.failed()) context.fail(handler.cause());
+    });
+  }
+
+  @Test
+  public void testFiresOncePerSecond(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    JsonObject event = event().put("address", address);
+    AtomicInteger count = new AtomicInteger(0);
+
+    rule.vertx().eventBus().consumer(address, handler -> {
+      count.incrementAndGet();
+      handler.reply(null);
+    });
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, handler -> {
+      if (handler.failed()) context.fail(handler.cause());
+    });
+
+    rule.vertx().setTimer((long) (1000 * 5.5), timerHandler -> {
+      // Depending on where in the second the schedule landed, there are 5 or 6 boundaries
+      context.assertTrue(count.get() >= 5 && count.get() <= 6, "Fired " + count.get() + " times");
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testCancel(TestContext context) {
+
+    Async async = context.async();
+
+    String sendAddress = UUID.randomUUID().toString();
+    AtomicReference<String> id = new AtomicReference<>("");
+    AtomicInteger hits = new AtomicInteger(0);
+
+    JsonObject event = event().put("address", sendAddress);
+
+    rule.vertx().eventBus().consumer(sendAddress, handler -> {
+      if (hits.incrementAndGet() == 1) {
+        rule.vertx().eventBus().request(CANCEL_ADDRESS, id.get(), cancelHandler -> {
+          if (cancelHandler.failed()) context.fail(cancelHandler.cause());
+          rule.vertx().setTimer(3000, timerHandler -> {
+            context.assertEquals(1, hits.get());
+            async.complete();
+          });
+        });
+      }
+    });
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, handler -> {
+      if (handler.failed()) context.fail(handler.cause());
+      id.set((String) handler.result().body());
+    });
+  }
+
+  @Test
+  public void testBadCronspec(TestContext context) {
+
+    Async async = context.async();
+
+    JsonObject event = event().put("cron_expression", "SQUID");
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, handler -> {
+      if (handler.succeeded()) context.fail("Should have failed due to bad cronspec");
+      if (handler.failed()) {
+        context.assertEquals("Invalid cronspec SQUID", handler.cause().getMessage());
+      }
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testJitter(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    JsonObject event = event()
+      .put("cron_expression", "*/2 * * * * ?")
+      .put("address", address)
+      .put("action", "publish")
+      .put("jitter_ms", 1500);
+
+    List<Long> offsets = new CopyOnWriteArrayList<>();
+    rule.vertx().eventBus().consumer(address, handler -> {
+      offsets.add(System.currentTimeMillis() % 2000);
+      if (offsets.size() == 2) {
+        // Every fire is made at the same offset into the window, fixed by the cron_id
+        context.assertTrue(offsets.get(0) < 1500 + 200, "offset: " + offsets.get(0));
+        context.assertTrue(Math.abs(offsets.get(0) - offsets.get(1)) < 200, "offsets: " + offsets);
+        async.complete();
+      }
+    });
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, context.asyncAssertSuccess());
+  }
+
+  private JsonObject event() {
+
+    JsonObject event = new JsonObject()
+      .put("cron_expression", "*/1 * * * * ?")
+      .put("address", "scheduled.address")
+      .put("message", "squid")
+      .put("action", "send")
+      .put("result_address", "result.address");
+
+    return event;
+  }
+}
@@ -0,0 +1,130 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronInstancesTest {
+
+  private static final int SCHEDULES = 30;
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  private String deployment2;
+
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject()
+      .put("address_base", "instances")
+      .put("partition_instances", true)
+      .put("heartbeat_ms", 200);
+
+    Async async = context.async();
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config).setInstances(2), context.asyncAssertSuccess(id -> {
+      rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config), context.asyncAssertSuccess(id2 -> {
+        deployment2 = id2;
+        // Let the instances hear each other's heartbeats
+        rule.vertx().setTimer(1000, timerHandler -> async.complete());
+      }));
+    }));
+  }
+
+  @Test
+  public void testPartitionAndRebalance(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < SCHEDULES; index++) {
+      batch.add(new JsonObject()
+        .put("cron_expression", "*/1 * * * * ?")
+        .put("address", address)
+        .put("message", index)
+        .put("action", "publish"));
+    }
+
+    Set<Object> fired = ConcurrentHashMap.newKeySet();
+    rule.vertx().eventBus().request("instances.schedule.batch", batch, context.asyncAssertSuccess(scheduled ->
+      rule.vertx().eventBus().<JsonArray>request("instances.instances", null, context.asyncAssertSuccess(before -> {
+
+        JsonArray stats = before.body();
+        context.assertEquals(3, stats.size());
+        context.assertEquals(SCHEDULES, total(context, stats));
+
+        rule.vertx().undeploy(deployment2, context.asyncAssertSuccess(v ->
+          rule.vertx().setTimer(500, timerHandler ->
+            rule.vertx().eventBus().<JsonArray>request("instances.instances", null, context.asyncAssertSuccess(after -> {
+
+              context.assertEquals(2, after.body().size());
+              context.assertEquals(SCHEDULES, total(context, after.body()));
+
+              // Every schedule still fires, whichever instance held it before
+              rule.vertx().eventBus().consumer(address, message -> {
+                fired.add(message.body());
+                if (fired.size() == SCHEDULES) async.complete();
+              });
+            }))
+          )
+        ));
+      }))
+    ));
+  }
+
+  @Test
+  public void testListAcrossInstances(TestContext context) {
+
+    Async async = context.async();
+
+    JsonArray batch = new JsonArray();
+    for (int index = 0; index < SCHEDULES; index++) {
+      batch.add(new JsonObject()
+        .put("cron_id", String.format("listed-%02d", index))
+        .put("cron_expression", "0 0 0 1 1 ?")
+        .put("address", "instances.listed"));
+    }
+
+    // Pages are merged from every instance, so they come back in order of id whoever holds them
+    rule.vertx().eventBus().request("instances.schedule.batch", batch, context.asyncAssertSuccess(scheduled ->
+      rule.vertx().eventBus().<JsonObject>request("instances.list", new JsonObject().put("limit", 20), context.asyncAssertSuccess(first -> {
+        JsonArray page = first.body().getJsonArray("schedules");
+        context.assertEquals(20, page.size());
+        context.assertEquals("listed-00", page.getJsonObject(0).getString("cron_id"));
+        context.assertEquals("listed-19", first.body().getString("next"));
+
+        JsonObject rest = new JsonObject().put("limit", 20).put("after", first.body().getString("next"));
+        rule.vertx().eventBus().<JsonObject>request("instances.list", rest, context.asyncAssertSuccess(second -> {
+          context.assertEquals(SCHEDULES - 20, second.body().getJsonArray("schedules").size());
+          context.assertNull(second.body().getString("next"));
+          async.complete();
+        }));
+      }))
+    ));
+  }
+
+  private int total(TestContext context, JsonArray stats) {
+
+    int total = 0;
+    for (int index = 0; index < stats.size(); index++) {
+      int schedules = stats.getJsonObject(index).getInteger("schedules");
+      context.assertTrue(schedules > 0);
+      total += schedules;
+    }
+    return total;
+  }
+}
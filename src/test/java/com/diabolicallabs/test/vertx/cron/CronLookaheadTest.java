@@ -0,0 +1,67 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronLookaheadTest {
+
+  private static final int FIRES = 5;
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Test
+  public void testRxEngine(TestContext context) {
+    testEverySecond(context, new JsonObject().put("address_base", "lookahead.rx"));
+  }
+
+  @Test
+  public void testWheelEngine(TestContext context) {
+    testEverySecond(context, new JsonObject().put("address_base", "lookahead.wheel").put("engine", "wheel"));
+  }
+
+  @Test
+  public void testPreciseTiming(TestContext context) {
+    testEverySecond(context, new JsonObject().put("address_base", "lookahead.precise").put("timing", "precise"));
+  }
+
+  /**
+   * With a ring of two, every fire after the first two comes from a refill.
+   */
+  private void testEverySecond(TestContext context, JsonObject config) {
+
+    Async async = context.async(FIRES);
+
+    String address = UUID.randomUUID().toString();
+    AtomicLong last = new AtomicLong();
+    rule.vertx().eventBus().consumer(address, message -> {
+      long now = System.currentTimeMillis();
+      // A fire made twice, or one skipped, would break the pace of one a second
+      if (last.get() > 0) context.assertInRange(1000, now - last.get(), 500);
+      last.set(now);
+      if (async.count() > 0) async.countDown();
+    });
+
+    JsonObject event = new JsonObject()
+      .put("cron_expression", "* * * * * ?")
+      .put("address", address)
+      .put("action", "publish");
+
+    String base = config.getString("address_base");
+    config.put("lookahead_fires", 2);
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config), context.asyncAssertSuccess(id ->
+      rule.vertx().eventBus().request(base + ".schedule", event, context.asyncAssertSuccess())));
+  }
+
+}
@@ -0,0 +1,127 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronMetricsTest {
+
+  private static final String BASE_ADDRESS = "metrics.schedule";
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @Before
+  public void before(TestContext context) {
+
+    meterRegistry = new SimpleMeterRegistry();
+    Metrics.addRegistry(meterRegistry);
+
+    JsonObject config = new JsonObject()
+      .put("address_base", "metrics")
+      .put("metrics", true)
+      .put("metrics_max_addresses", 1);
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess());
+  }
+
+  @After
+  public void after() {
+    Metrics.removeRegistry(meterRegistry);
+  }
+
+  @Test
+  public void testFireMetrics(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    String failing = UUID.randomUUID().toString();
+    String resultAddress = UUID.randomUUID().toString();
+
+    rule.vertx().eventBus().consumer(address, handler -> handler.reply("pong"));
+    rule.vertx().eventBus().consumer(failing, handler -> handler.fail(1, "no"));
+
+    JsonObject replying = new JsonObject()
+      .put("cron_expression", "*/1 * * * * ?")
+      .put("address", address)
+      .put("result_address", resultAddress);
+    JsonObject failingEvent = replying.copy().put("address", failing);
+
+    // The failing schedule starts once the first address has taken the only tagged slot
+    AtomicBoolean started = new AtomicBoolean(false);
+    rule.vertx().eventBus().consumer(resultAddress, result -> {
+      if (started.compareAndSet(false, true)) {
+        rule.vertx().eventBus().request(BASE_ADDRESS, failingEvent, context.asyncAssertSuccess(second -> {
+          rule.vertx().setTimer(2500, timerHandler -> {
+
+            context.assertEquals(2.0, meterRegistry.get("cron.schedules.active").tag("address_base", "metrics").gauge().value());
+
+            context.assertTrue(meterRegistry.get("cron.fires").tag("address", address).counter().count() >= 2);
+            context.assertTrue(meterRegistry.get("cron.fire.lateness").tag("address", address).timer().count() >= 2);
+            context.assertTrue(meterRegistry.get("cron.requests").tag("address", address).tag("outcome", "success").timer().count() >= 2);
+            context.assertTrue(meterRegistry.get("cron.result.forwards").tag("address", address).timer().count() >= 2);
+
+            // Past the address limit, the failing address is recorded as "other"
+            context.assertTrue(meterRegistry.get("cron.requests").tag("address", "other").tag("outcome", "failure").timer().count() >= 2);
+            context.assertNull(meterRegistry.find("cron.fires").tag("address", failing).counter());
+
+            async.complete();
+          });
+        }));
+      }
+    });
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, replying, context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testPartitionedMetricsRemoved(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    JsonObject config = new JsonObject()
+      .put("address_base", "metrics.partitioned")
+      .put("partition_instances", true)
+      .put("metrics", true);
+    DeploymentOptions options = new DeploymentOptions().setConfig(config).setInstances(2);
+
+    AtomicBoolean fired = new AtomicBoolean(false);
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(id -> {
+
+      // Each instance has its own meters until it is undeployed
+      rule.vertx().eventBus().consumer(address, handler -> {
+        if (!fired.compareAndSet(false, true)) return;
+        context.assertEquals(2, meterRegistry.find("cron.schedules.active").tag("address_base", "metrics.partitioned").gauges().size());
+        context.assertNotNull(meterRegistry.find("cron.fires").tag("address", address).counter());
+
+        rule.vertx().undeploy(id, context.asyncAssertSuccess(undeployed -> {
+          context.assertTrue(meterRegistry.find("cron.schedules.active").tag("address_base", "metrics.partitioned").gauges().isEmpty());
+          context.assertTrue(meterRegistry.find("cron.fires").tag("address_base", "metrics.partitioned").counters().isEmpty());
+          async.complete();
+        }));
+      });
+
+      JsonObject event = new JsonObject().put("cron_expression", "*/1 * * * * ?").put("address", address).put("action", "publish");
+      rule.vertx().eventBus().request("metrics.partitioned.schedule", event, context.asyncAssertSuccess());
+    }));
+  }
+}
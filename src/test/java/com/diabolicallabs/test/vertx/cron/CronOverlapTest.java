@@ -0,0 +1,148 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronOverlapTest {
+
+  private static final String BASE_ADDRESS = "overlap.schedule";
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject().put("address_base", "overlap").put("max_in_flight_per_address", 1);
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testSkipWhileInFlight(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger received = new AtomicInteger(0);
+
+    // Never replies
+    rule.vertx().eventBus().consumer(address, handler -> received.incrementAndGet());
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event(address).put("max_in_flight", 1), context.asyncAssertSuccess());
+
+    rule.vertx().setTimer(3500, timerHandler -> {
+      context.assertEquals(1, received.get());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testAddressLimit(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger received = new AtomicInteger(0);
+    rule.vertx().eventBus().consumer(address, handler -> received.incrementAndGet());
+
+    // Two schedules with no limit of their own share the one request allowed to the address
+    rule.vertx().eventBus().request(BASE_ADDRESS, event(address), context.asyncAssertSuccess());
+    rule.vertx().eventBus().request(BASE_ADDRESS, event(address), context.asyncAssertSuccess());
+
+    rule.vertx().setTimer(3500, timerHandler -> {
+      context.assertEquals(1, received.get());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testQueueUntilReplied(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger received = new AtomicInteger(0);
+    rule.vertx().eventBus().consumer(address, handler -> {
+      received.incrementAndGet();
+      rule.vertx().setTimer(2500, replyTimer -> handler.reply("done"));
+    });
+
+    JsonObject event = event(address)
+      .put("max_in_flight", 1)
+      .put("overlap_policy", "queue")
+      .put("max_queued", 1);
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, context.asyncAssertSuccess());
+
+    // The first fire is sent, the second queued and the third dropped; the reply to the first,
+    // 2.5 seconds later, sends the second
+    rule.vertx().setTimer(4500, timerHandler -> {
+      context.assertEquals(2, received.get());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testSendTimeout(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger received = new AtomicInteger(0);
+    rule.vertx().eventBus().consumer(address, handler -> received.incrementAndGet());
+
+    // Each request times out before the next fire, so none is skipped
+    JsonObject event = event(address).put("max_in_flight", 1).put("send_timeout_ms", 500);
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, context.asyncAssertSuccess());
+
+    rule.vertx().setTimer(3500, timerHandler -> {
+      context.assertTrue(received.get() >= 2);
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testBadSendTimeout(TestContext context) {
+
+    Async async = context.async();
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event("nowhere").put("send_timeout_ms", 0), handler -> {
+      context.assertTrue(handler.failed());
+      context.assertEquals("send_timeout_ms must be a positive number", handler.cause().getMessage());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void testBadOverlapPolicy(TestContext context) {
+
+    Async async = context.async();
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event("nowhere").put("overlap_policy", "SQUID"), handler -> {
+      context.assertTrue(handler.failed());
+      context.assertEquals("overlap_policy must be 'skip', 'queue' or 'fire'", handler.cause().getMessage());
+      async.complete();
+    });
+  }
+
+  private JsonObject event(String address) {
+
+    return new JsonObject()
+      .put("cron_expression", "*/1 * * * * ?")
+      .put("address", address)
+      .put("action", "send");
+  }
+}
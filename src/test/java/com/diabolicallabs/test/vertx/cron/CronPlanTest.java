@@ -0,0 +1,135 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronPlan;
+import com.diabolicallabs.vertx.cron.CronPlanCache;
+import org.junit.Assert;
+import org.junit.Test;
+import org.quartz.CronExpression;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class CronPlanTest {
+
+  private static final String[] EXPRESSIONS = {
+    "*/1 * * * * ?",
+    "*/30 * * * * ?",
+    "0 */5 * * * ?",
+    "0 0 * * * ?",
+    "0 30 1 * * ?",
+    "0 30 2 * * ?",
+    "15 10 0/3 ? * MON-FRI",
+    "0 0 12 ? * SUN,SAT",
+    "0 0 0 1 * ?",
+    "0 0 0 29 2 ?",
+    "0 0 0 31 * ?",
+    "0 0 16 1/1 * ? *",
+    "0 15 10 ? * FRI-MON",
+    "0 0 22-2 * * ?",
+    "5-10/2 0 0 ? JAN,JUL *",
+    "0 0 0 1 1 ? 2026,2031",
+    "0 0 0 1 1 ? 2001",
+    "0 15 10 L * ?",
+    "0 15 10 ? * 6L",
+    "0 15 10 ? * 2#3",
+    "0 0 12 15W * ?"
+  };
+
+  private static final String[] ZONES = {
+    null,
+    "UTC",
+    "America/New_York",
+    "Europe/London",
+    "Australia/Lord_Howe",
+    "Asia/Kolkata",
+    "Pacific/Chatham",
+    "America/Sao_Paulo",
+    "EST"
+  };
+
+  @Test
+  public void testMatchesQuartz() throws Exception {
+
+    Random random = new Random(42);
+    long from = Instant.parse("2019-01-01T00:00:00Z").toEpochMilli();
+    long span = Instant.parse("2031-01-01T00:00:00Z").toEpochMilli() - from;
+
+    for (String zone : ZONES) {
+      for (String expression : EXPRESSIONS) {
+
+        CronPlan plan = CronPlan.compile(expression, zone);
+        CronExpression quartz = new CronExpression(expression);
+        quartz.setTimeZone(zone == null ? TimeZone.getDefault() : TimeZone.getTimeZone(zone));
+
+        for (int i = 0; i < 50; i++) {
+          long after = from + (long) (random.nextDouble() * span);
+          for (int fire = 0; fire < 10; fire++) {
+            Date expected = quartz.getNextValidTimeAfter(new Date(after));
+            long actual = plan.nextFireAfter(after);
+            String description = expression + " in " + zone + " after " + Instant.ofEpochMilli(after);
+            if (expected == null) {
+              Assert.assertEquals(description, -1, actual);
+              break;
+            }
+            Assert.assertEquals(description, expected.toInstant(), Instant.ofEpochMilli(actual));
+            after = actual;
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDaylightSavingTransitions() throws Exception {
+
+    String[] expressions = {"0 */20 * * * ?", "0 30 1 * * ?", "0 30 2 * * ?", "0 0 * * * ?", "*/1 * * * * ?"};
+    String[] instants = {"2024-03-10T05:30:00Z", "2024-11-03T04:30:00Z", "2024-03-31T00:30:00Z", "2024-10-27T00:30:00Z"};
+
+    for (String expression : expressions) {
+      for (String zone : new String[]{"America/New_York", "Europe/London"}) {
+
+        CronPlan plan = CronPlan.compile(expression, zone);
+        CronExpression quartz = new CronExpression(expression);
+        quartz.setTimeZone(TimeZone.getTimeZone(zone));
+
+        for (String instant : instants) {
+          long after = Instant.parse(instant).toEpochMilli();
+          for (int fire = 0; fire < 200; fire++) {
+            Date expected = quartz.getNextValidTimeAfter(new Date(after));
+            long actual = plan.nextFireAfter(after);
+            Assert.assertEquals(expression + " in " + zone + " after " + Instant.ofEpochMilli(after), expected.getTime(), actual);
+            after = actual;
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testInvalidExpression() {
+
+    try {
+      CronPlan.compile("*/2 GOAT * ?", null);
+      Assert.fail("Invalid cronspec not caught");
+    } catch (IllegalArgumentException iae) {
+      Assert.assertEquals("Invalid cronspec */2 GOAT * ?", iae.getMessage());
+    }
+  }
+
+  @Test
+  public void testCacheSharesPlans() {
+
+    CronPlanCache cache = new CronPlanCache(2);
+
+    CronPlan plan = cache.get("0 */5 * * * ?", "UTC");
+    Assert.assertSame(plan, cache.get("0 */5 * * * ?", "UTC"));
+    Assert.assertNotSame(plan, cache.get("0 */5 * * * ?", "Europe/London"));
+
+    cache.get("0 0 * * * ?", null);
+    Assert.assertEquals(2, cache.size());
+    Assert.assertNotSame(plan, cache.get("0 */5 * * * ?", "UTC"));
+  }
+
+}
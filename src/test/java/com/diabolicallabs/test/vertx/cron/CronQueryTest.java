@@ -0,0 +1,252 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronQueryTest {
+
+  private static final String SECONDLY = "* * * * * ?";
+  private static final String YEARLY = "0 0 0 1 1 ?";
+  private static final int LARGE = 100000;
+  private static final long LATE_MILLIS = 100;
+
+  @ClassRule
+  public static TemporaryFolder folder = new TemporaryFolder();
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  @Before
+  public void before(TestContext context) {
+
+    Async async = context.async();
+
+    // Replies to the secondly events; nothing listens to the yearly ones
+    rule.vertx().eventBus().consumer("query.secondly", handler -> handler.reply("ok"));
+
+    JsonObject config = new JsonObject().put("address_base", "query");
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config), context.asyncAssertSuccess(id -> {
+
+      JsonArray batch = new JsonArray();
+      for (int index = 0; index < 3; index++) {
+        batch.add(new JsonObject().put("cron_id", "query-a-" + index).put("cron_expression", SECONDLY).put("address", "query.secondly"));
+      }
+      for (int index = 0; index < 2; index++) {
+        batch.add(new JsonObject().put("cron_id", "query-b-" + index).put("cron_expression", YEARLY).put("address", "query.yearly"));
+      }
+      rule.vertx().eventBus().request("query.schedule.batch", batch, context.asyncAssertSuccess(reply -> async.complete()));
+    }));
+  }
+
+  @Test
+  public void testGet(TestContext context) {
+
+    rule.vertx().eventBus().<JsonObject>request("query.get", "query-b-1", context.asyncAssertSuccess(reply -> {
+      context.assertEquals("query-b-1", reply.body().getString("cron_id"));
+      context.assertEquals(YEARLY, reply.body().getString("cron_expression"));
+      context.assertEquals("query.yearly", reply.body().getString("address"));
+    }));
+
+    rule.vertx().eventBus().request("query.get", "query-missing", context.asyncAssertFailure());
+  }
+
+  @Test
+  public void testListPages(TestContext context) {
+
+    Async async = context.async();
+
+    List<String> ids = new ArrayList<>();
+    rule.vertx().eventBus().<JsonObject>request("query.list", new JsonObject().put("limit", 2), context.asyncAssertSuccess(first -> {
+      first.body().getJsonArray("schedules").forEach(entry -> ids.add(((JsonObject) entry).getString("cron_id")));
+      context.assertEquals("query-a-1", first.body().getString("next"));
+
+      JsonObject rest = new JsonObject().put("limit", 10).put("after", first.body().getString("next"));
+      rule.vertx().eventBus().<JsonObject>request("query.list", rest, context.asyncAssertSuccess(second -> {
+        second.body().getJsonArray("schedules").forEach(entry -> ids.add(((JsonObject) entry).getString("cron_id")));
+        context.assertNull(second.body().getString("next"));
+        context.assertEquals("[query-a-0, query-a-1, query-a-2, query-b-0, query-b-1]", ids.toString());
+        async.complete();
+      }));
+    }));
+  }
+
+  @Test
+  public void testListFiltered(TestContext context) {
+
+    rule.vertx().eventBus().<JsonObject>request("query.list", new JsonObject().put("address", "query.yearly"), context.asyncAssertSuccess(reply ->
+      context.assertEquals(2, reply.body().getJsonArray("schedules").size())));
+
+    rule.vertx().eventBus().<JsonObject>request("query.list", new JsonObject().put("cron_expression", SECONDLY), context.asyncAssertSuccess(reply ->
+      context.assertEquals(3, reply.body().getJsonArray("schedules").size())));
+
+    long now = System.currentTimeMillis();
+    JsonObject window = new JsonObject().put("next_fire_from", now).put("next_fire_to", now + 60000);
+    rule.vertx().eventBus().<JsonObject>request("query.list", window, context.asyncAssertSuccess(reply -> {
+      JsonArray schedules = reply.body().getJsonArray("schedules");
+      context.assertEquals(3, schedules.size());
+      schedules.forEach(entry -> context.assertEquals("query.secondly", ((JsonObject) entry).getString("address")));
+    }));
+
+    rule.vertx().eventBus().request("query.list", new JsonObject().put("limit", 0), context.asyncAssertFailure());
+  }
+
+  @Test
+  public void testStats(TestContext context) {
+
+    Async async = context.async();
+
+    rule.vertx().eventBus().<JsonObject>request("query.stats", "query-b-0", context.asyncAssertSuccess(yearly -> {
+      context.assertEquals(0L, yearly.body().getLong("fires"));
+      context.assertNull(yearly.body().getLong("last_fire"));
+      context.assertNotNull(yearly.body().getLong("next_fire"));
+
+      rule.vertx().setTimer(2500, timer ->
+        rule.vertx().eventBus().<JsonObject>request("query.stats", "query-a-0", context.asyncAssertSuccess(secondly -> {
+          JsonObject stats = secondly.body();
+          context.assertTrue(stats.getLong("fires") >= 1);
+          context.assertTrue(stats.getLong("next_fire") > stats.getLong("last_fire"));
+          context.assertNotNull(stats.getLong("last_latency_ms"));
+          context.assertNull(stats.getString("last_error"));
+          async.complete();
+        })));
+    }));
+  }
+
+  @Test
+  public void testPending(TestContext context) throws Exception {
+
+    Async async = context.async();
+
+    JsonObject config = new JsonObject()
+      .put("address_base", "stored")
+      .put("store", new JsonObject().put("type", "snapshot").put("path", folder.newFolder().toPath().resolve("schedules").toString()));
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    // Not due for months, so they are left in the snapshot on restart
+    JsonArray batch = new JsonArray()
+      .add(new JsonObject().put("cron_id", "stored-0").put("cron_expression", YEARLY).put("address", "stored.yearly"))
+      .add(new JsonObject().put("cron_id", "stored-1").put("cron_expression", YEARLY).put("address", "stored.yearly"));
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(first ->
+      rule.vertx().eventBus().request("stored.schedule.batch", batch, context.asyncAssertSuccess(scheduled ->
+        rule.vertx().undeploy(first, context.asyncAssertSuccess(undeployed -> {
+          rule.vertx().sharedData().getLocalMap("stored.cron.ids").clear();
+          rule.vertx().sharedData().getLocalMap("stored.cron.ids.index").clear();
+
+          rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(second -> {
+
+            rule.vertx().eventBus().<JsonObject>request("stored.get", "stored-1", context.asyncAssertSuccess(reply ->
+              context.assertEquals("stored.yearly", reply.body().getString("address"))));
+
+            rule.vertx().eventBus().<JsonObject>request("stored.stats", "stored-0", context.asyncAssertSuccess(reply -> {
+              context.assertEquals(0L, reply.body().getLong("fires"));
+              context.assertNotNull(reply.body().getLong("next_fire"));
+            }));
+
+            rule.vertx().eventBus().<JsonArray>request("stored.instances", null, context.asyncAssertSuccess(reply ->
+              context.assertEquals(2, reply.body().getJsonObject(0).getInteger("schedules"))));
+
+            rule.vertx().eventBus().<JsonObject>request("stored.list", new JsonObject().put("limit", 1), context.asyncAssertSuccess(page ->
+              rule.vertx().eventBus().<JsonObject>request("stored.list", new JsonObject().put("after", page.body().getString("next")), context.asyncAssertSuccess(rest -> {
+                context.assertEquals("stored-0", page.body().getJsonArray("schedules").getJsonObject(0).getString("cron_id"));
+                context.assertEquals("stored-1", rest.body().getJsonArray("schedules").getJsonObject(0).getString("cron_id"));
+                context.assertNull(rest.body().getString("next"));
+                async.complete();
+              }))));
+          }));
+        }))))));
+  }
+
+  /**
+   * Lists, back to back, the schedules of a large snapshot that are not restored yet, and due within
+   * the minute, which means reading every one of them, while a schedule fires every second.
+   */
+  @Test
+  public void testListPendingKeepsFiring(TestContext context) throws Exception {
+
+    Async async = context.async();
+
+    JsonObject config = new JsonObject()
+      .put("address_base", "large")
+      .put("store", new JsonObject().put("type", "snapshot").put("path", folder.newFolder().toPath().resolve("schedules").toString()));
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    List<Long> late = new CopyOnWriteArrayList<>();
+    AtomicBoolean listing = new AtomicBoolean(true);
+    rule.vertx().eventBus().consumer("large.secondly", message -> {
+      late.add(System.currentTimeMillis() % 1000);
+      if (late.size() < 5) return;
+
+      listing.set(false);
+      context.assertTrue(late.stream().allMatch(millis -> millis < LATE_MILLIS), "late by " + late);
+      async.complete();
+    });
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(first ->
+      scheduleYearly(context, 0, () ->
+        rule.vertx().undeploy(first, context.asyncAssertSuccess(undeployed -> {
+          rule.vertx().sharedData().getLocalMap("large.cron.ids").clear();
+          rule.vertx().sharedData().getLocalMap("large.cron.ids.index").clear();
+
+          rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(second -> {
+            JsonObject secondly = new JsonObject().put("cron_expression", SECONDLY).put("address", "large.secondly").put("action", "publish");
+            rule.vertx().eventBus().request("large.schedule", secondly, context.asyncAssertSuccess(scheduled -> listPending(context, listing)));
+          }));
+        })))));
+  }
+
+  private void scheduleYearly(TestContext context, int from, Runnable scheduled) {
+
+    if (from == LARGE) {
+      scheduled.run();
+      return;
+    }
+
+    JsonArray batch = new JsonArray();
+    for (int index = from; index < from + 1000; index++) {
+      batch.add(new JsonObject().put("cron_id", "large-" + index).put("cron_expression", YEARLY).put("address", "large.yearly"));
+    }
+    rule.vertx().eventBus().request("large.schedule.batch", batch, context.asyncAssertSuccess(reply -> scheduleYearly(context, from + 1000, scheduled)));
+  }
+
+  private void listPending(TestContext context, AtomicBoolean listing) {
+
+    long now = System.currentTimeMillis();
+    JsonObject window = new JsonObject().put("next_fire_from", now).put("next_fire_to", now + 60000);
+    rule.vertx().eventBus().<JsonObject>request("large.list", window, context.asyncAssertSuccess(reply -> {
+      if (listing.get()) listPending(context, listing);
+    }));
+  }
+
+  @Test
+  public void testLastError(TestContext context) {
+
+    Async async = context.async();
+
+    JsonObject event = new JsonObject().put("cron_id", "query-unanswered").put("cron_expression", SECONDLY).put("address", "query.nobody");
+    rule.vertx().eventBus().request("query.schedule", event, context.asyncAssertSuccess(id ->
+      rule.vertx().setTimer(2500, timer ->
+        rule.vertx().eventBus().<JsonObject>request("query.stats", "query-unanswered", context.asyncAssertSuccess(reply -> {
+          context.assertNotNull(reply.body().getString("last_error"));
+          async.complete();
+        })))));
+  }
+
+}
@@ -14,7 +14,10 @@ import org.junit.runner.RunWith;
 
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
@@ -114,4 +117,32 @@ public class CronRxTest {
     }
   }
 
+  @Test
+  public void testPreciseAfterStall(TestContext context) {
+
+    Async async = context.async();
+
+    List<Long> planned = new CopyOnWriteArrayList<>();
+
+    CronObservable.precise(scheduler, "*/1 * * * * ?")
+      .doOnNext(System.out::println)
+      .take(5)
+      .subscribe(
+        timestamped -> {
+          context.assertTrue(timestamped.time(TimeUnit.MILLISECONDS) >= timestamped.value());
+          planned.add(timestamped.value());
+          // Stall the event loop past the next two fires
+          if (planned.size() == 1) Thread.sleep(2500);
+        },
+        context::fail,
+        () -> {
+          // The fires that came due during the stall are made late, not skipped or repeated
+          for (int i = 1; i < planned.size(); i++) {
+            context.assertEquals(planned.get(i - 1) + 1000, planned.get(i));
+          }
+          async.complete();
+        }
+      );
+  }
+
 }
@@ -0,0 +1,141 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronClock;
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import com.diabolicallabs.vertx.cron.CronObservable;
+import io.reactivex.schedulers.TestScheduler;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronSimulatedClockTest {
+
+  private static final long START = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  private TestScheduler scheduler;
+
+  @Before
+  public void before() {
+    scheduler = new TestScheduler(START, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void testObservableDay() {
+
+    List<Long> planned = new CopyOnWriteArrayList<>();
+    CronObservable.cronspec(scheduler, "0 0 * * * ?", "UTC", CronClock.of(scheduler))
+      .subscribe(timed -> planned.add(timed.value()));
+
+    scheduler.advanceTimeBy(DAY, TimeUnit.MILLISECONDS);
+
+    assertHourly(planned);
+  }
+
+  @Test
+  public void testPreciseObservableDay() {
+
+    List<Long> planned = new CopyOnWriteArrayList<>();
+    CronObservable.precise(scheduler, "0 0 * * * ?", "UTC", CronClock.of(scheduler))
+      .subscribe(timed -> planned.add(timed.value()));
+
+    scheduler.advanceTimeBy(DAY, TimeUnit.MILLISECONDS);
+
+    assertHourly(planned);
+  }
+
+  @Test
+  public void testRxEngineDay(TestContext context) {
+    testVerticalDay(context, new JsonObject().put("address_base", "simulated.rx"));
+  }
+
+  @Test
+  public void testWheelEngineDay(TestContext context) {
+    testVerticalDay(context, new JsonObject().put("address_base", "simulated.wheel").put("engine", "wheel"));
+  }
+
+  /**
+   * Five 30 second intervals, in no time.
+   */
+  @Test
+  public void testThirtySecondly(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    List<Object> received = new CopyOnWriteArrayList<>();
+    rule.vertx().eventBus().localConsumer(address, message -> received.add(message.body()));
+
+    deploy(context, new JsonObject().put("address_base", "simulated.thirty"), () ->
+      rule.vertx().eventBus().request("simulated.thirty.schedule", event("*/30 * * * * ?", address), context.asyncAssertSuccess(id -> {
+
+        scheduler.advanceTimeBy(150, TimeUnit.SECONDS);
+        // Delivery to the consumer goes through the event loop, so check once it had its turn
+        rule.vertx().setTimer(100, timer -> {
+          context.assertEquals(5, received.size());
+          async.complete();
+        });
+      })));
+  }
+
+  private void testVerticalDay(TestContext context, JsonObject config) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    List<Object> received = new CopyOnWriteArrayList<>();
+    rule.vertx().eventBus().localConsumer(address, message -> received.add(message.body()));
+
+    String base = config.getString("address_base");
+    deploy(context, config, () ->
+      rule.vertx().eventBus().request(base + ".schedule", event("0 0 * * * ?", address), context.asyncAssertSuccess(id -> {
+
+        scheduler.advanceTimeBy(DAY, TimeUnit.MILLISECONDS);
+        rule.vertx().setTimer(100, timer -> {
+          context.assertEquals(24, received.size());
+          async.complete();
+        });
+      })));
+  }
+
+  private void deploy(TestContext context, JsonObject config, Runnable deployed) {
+
+    CronEventSchedulerVertical vertical = new CronEventSchedulerVertical(scheduler, CronClock.of(scheduler));
+    rule.vertx().deployVerticle(vertical, new DeploymentOptions().setConfig(config), context.asyncAssertSuccess(id -> deployed.run()));
+  }
+
+  private JsonObject event(String expression, String address) {
+
+    return new JsonObject()
+      .put("cron_expression", expression)
+      .put("timezone_name", "UTC")
+      .put("address", address)
+      .put("message", "tick")
+      .put("action", "publish");
+  }
+
+  private void assertHourly(List<Long> planned) {
+
+    Assert.assertEquals(24, planned.size());
+    for (int hour = 0; hour < 24; hour++) {
+      Assert.assertEquals(START + TimeUnit.HOURS.toMillis(hour + 1), (long) planned.get(hour));
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronSingletonTest {
+
+  private static final String BASE_ADDRESS = "singleton.schedule";
+
+  private Supplier<Vertx> supplier = () -> {
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicReference<Vertx> vertx = new AtomicReference<>();
+    Vertx.clusteredVertx(new VertxOptions(), handler -> {
+      if (handler.succeeded()) {
+        vertx.set(handler.result());
+        latch.countDown();
+      } else {
+        throw new RuntimeException("Unable to create clustered Vertx");
+      }
+    });
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    return vertx.get();
+  };
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext(supplier);
+
+  @Rule
+  public RunTestOnContext rule2 = new RunTestOnContext(supplier);
+
+  private String deployment2;
+
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject()
+      .put("address_base", "singleton")
+      .put("singleton", true)
+      .put("lease_ms", 900);
+    DeploymentOptions options = new DeploymentOptions().setConfig(config);
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess());
+    rule2.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(id -> deployment2 = id));
+  }
+
+  @Test
+  public void testOneNodeFires(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicInteger hits = new AtomicInteger(0);
+    rule.vertx().eventBus().consumer(address, handler -> hits.incrementAndGet());
+
+    // The same job is scheduled on both nodes
+    JsonObject event = new JsonObject()
+      .put("cron_id", "job")
+      .put("cron_expression", "*/1 * * * * ?")
+      .put("address", address)
+      .put("action", "publish");
+    DeliveryOptions local = new DeliveryOptions().setLocalOnly(true);
+
+    rule.vertx().eventBus().request(BASE_ADDRESS, event, local, context.asyncAssertSuccess(first -> {
+      rule2.vertx().eventBus().request(BASE_ADDRESS, event, local, context.asyncAssertSuccess(second -> {
+
+        hits.set(0);
+        rule.vertx().setTimer(3500, timerHandler -> {
+          context.assertTrue(hits.get() >= 2 && hits.get() <= 4, "fired " + hits.get() + " times in 3.5 seconds");
+
+          // Whichever node led the shard, the other one carries on once it is gone
+          rule2.vertx().undeploy(deployment2, context.asyncAssertSuccess(undeployed -> {
+            rule.vertx().setTimer(1000, settled -> {
+              hits.set(0);
+              rule.vertx().setTimer(2500, failover -> {
+                context.assertTrue(hits.get() >= 1 && hits.get() <= 3, "fired " + hits.get() + " times in 2.5 seconds");
+                async.complete();
+              });
+            });
+          }));
+        });
+      }));
+    }));
+  }
+}
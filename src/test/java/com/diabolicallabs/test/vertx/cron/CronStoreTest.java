@@ -0,0 +1,246 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronClock;
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.reactivex.schedulers.TestScheduler;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.MultiMap;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronStoreTest {
+
+  private static final String BASE_ADDRESS = "store.schedule";
+  private static final String CANCEL_ADDRESS = "store.cancel";
+
+  // Outlives the Vert.x instance of each test, which closes the store when it is torn down
+  @ClassRule
+  public static TemporaryFolder folder = new TemporaryFolder();
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  private Path directory;
+
+  @Before
+  public void before() throws IOException {
+    directory = folder.newFolder().toPath();
+  }
+
+  @Test
+  public void testRestoreAfterRedeploy(TestContext context) {
+
+    Async async = context.async();
+
+    String kept = UUID.randomUUID().toString();
+    String cancelled = UUID.randomUUID().toString();
+    AtomicInteger keptHits = new AtomicInteger(0);
+    AtomicInteger cancelledHits = new AtomicInteger(0);
+
+    rule.vertx().eventBus().consumer(kept, handler -> keptHits.incrementAndGet());
+    rule.vertx().eventBus().consumer(cancelled, handler -> cancelledHits.incrementAndGet());
+
+    JsonArray batch = new JsonArray()
+      .add(event(kept).put("cron_id", "kept"))
+      .add(event(cancelled).put("cron_id", "cancelled"));
+
+    DeploymentOptions options = options("log");
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(first -> {
+      rule.vertx().eventBus().request(BASE_ADDRESS + ".batch", batch, context.asyncAssertSuccess(scheduled -> {
+        rule.vertx().eventBus().request(CANCEL_ADDRESS, "cancelled", context.asyncAssertSuccess(cancel -> {
+
+          // Undeploying closes the store, which flushes it
+          rule.vertx().undeploy(first, context.asyncAssertSuccess(undeployed -> {
+
+            // Nothing is left scheduled once the vertical is gone
+            rule.vertx().sharedData().getLocalMap("store.cron.ids").clear();
+            keptHits.set(0);
+            cancelledHits.set(0);
+
+            rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(second -> {
+              rule.vertx().setTimer(1500, timerHandler -> {
+                context.assertTrue(keptHits.get() > 0);
+                context.assertEquals(0, cancelledHits.get());
+
+                // The restored schedule keeps its id
+                rule.vertx().eventBus().request(BASE_ADDRESS, event(kept).put("cron_id", "kept"), duplicate -> {
+                  context.assertTrue(duplicate.failed());
+                  context.assertEquals("cron_id alredy exists: kept", duplicate.cause().getMessage());
+                  async.complete();
+                });
+              });
+            }));
+          }));
+        }));
+      }));
+    }));
+  }
+
+  @Test
+  public void testSnapshotRestore(TestContext context) {
+
+    Async async = context.async();
+
+    String kept = UUID.randomUUID().toString();
+    AtomicInteger keptHits = new AtomicInteger(0);
+    rule.vertx().eventBus().consumer(kept, handler -> keptHits.incrementAndGet());
+
+    // Not due for months, so it is left in the snapshot on restart
+    JsonArray batch = new JsonArray()
+      .add(event(kept).put("cron_id", "kept"))
+      .add(event(kept).put("cron_id", "yearly").put("cron_expression", "0 0 0 1 1 ?"))
+      .add(event(kept).put("cron_id", "cancelled").put("cron_expression", "0 0 0 1 1 ?"));
+
+    DeploymentOptions options = options("snapshot");
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(first -> {
+      rule.vertx().eventBus().request(BASE_ADDRESS + ".batch", batch, context.asyncAssertSuccess(scheduled -> {
+        rule.vertx().eventBus().request(CANCEL_ADDRESS, "cancelled", context.asyncAssertSuccess(cancel -> {
+          rule.vertx().undeploy(first, context.asyncAssertSuccess(undeployed -> {
+
+            context.assertTrue(Files.exists(directory.resolve("schedules")));
+            rule.vertx().sharedData().getLocalMap("store.cron.ids").clear();
+            keptHits.set(0);
+
+            rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(second -> {
+              rule.vertx().setTimer(1500, timerHandler -> {
+                context.assertTrue(keptHits.get() > 0);
+
+                JsonArray ids = new JsonArray().add("yearly").add("cancelled");
+                rule.vertx().eventBus().request(BASE_ADDRESS, event(kept).put("cron_id", "yearly"), duplicate -> {
+                  context.assertEquals("cron_id alredy exists: yearly", duplicate.cause().getMessage());
+
+                  rule.vertx().eventBus().request(CANCEL_ADDRESS + ".batch", ids, context.asyncAssertSuccess(reply -> {
+                    JsonArray results = (JsonArray) reply.body();
+                    context.assertTrue(results.getJsonObject(0).getBoolean("cancelled"));
+                    context.assertFalse(results.getJsonObject(1).getBoolean("cancelled"));
+                    async.complete();
+                  }));
+                });
+              });
+            }));
+          }));
+        }));
+      }));
+    }));
+  }
+
+  @Test
+  public void testMisfiresAfterDowntime(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicReference<MultiMap> firstHeaders = new AtomicReference<>();
+    rule.vertx().eventBus().consumer(address, handler -> firstHeaders.compareAndSet(null, handler.headers()));
+
+    JsonObject event = event(address).put("cron_id", "coalesced").put("misfire_policy", "fire_all");
+    DeploymentOptions options = options("log");
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(first -> {
+      rule.vertx().eventBus().request(BASE_ADDRESS, event, context.asyncAssertSuccess(scheduled -> {
+        rule.vertx().undeploy(first, context.asyncAssertSuccess(undeployed -> {
+
+          // As if the scheduler had been down for five seconds
+          try {
+            Files.setLastModifiedTime(directory.resolve("schedules"), FileTime.fromMillis(System.currentTimeMillis() - 5000));
+          } catch (IOException e) {
+            context.fail(e);
+          }
+          rule.vertx().sharedData().getLocalMap("store.cron.ids").clear();
+          firstHeaders.set(null);
+
+          rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(second -> {
+            rule.vertx().setTimer(500, timerHandler -> {
+
+              // The missed fires were coalesced into one, delivered on restore
+              MultiMap headers = firstHeaders.get();
+              context.assertNotNull(headers);
+              int misfires = Integer.parseInt(headers.get("cron_misfires"));
+              context.assertTrue(misfires >= 4 && misfires <= 6, "misfires: " + misfires);
+
+              String[] planned = headers.get("cron_planned").split(",");
+              context.assertTrue(planned.length >= misfires);
+              for (int i = 1; i < planned.length; i++) {
+                context.assertEquals(Long.parseLong(planned[i - 1]) + 1000, Long.parseLong(planned[i]));
+              }
+              async.complete();
+            });
+          }));
+        }));
+      }));
+    }));
+  }
+
+  /**
+   * Restores by the injected clock, which here is a year and a month past the snapshot: the yearly
+   * schedule is due, so it is restored at once, and its missed fire is made.
+   */
+  @Test
+  public void testRestoreBySimulatedClock(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    AtomicReference<MultiMap> firstHeaders = new AtomicReference<>();
+    rule.vertx().eventBus().consumer(address, handler -> firstHeaders.compareAndSet(null, handler.headers()));
+
+    JsonObject event = event(address).put("cron_id", "yearly").put("cron_expression", "0 0 0 1 1 ?").put("misfire_policy", "fire_all");
+    DeploymentOptions options = options("snapshot");
+
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), options, context.asyncAssertSuccess(first -> {
+      rule.vertx().eventBus().request(BASE_ADDRESS, event, context.asyncAssertSuccess(scheduled -> {
+        rule.vertx().undeploy(first, context.asyncAssertSuccess(undeployed -> {
+          rule.vertx().sharedData().getLocalMap("store.cron.ids").clear();
+
+          TestScheduler scheduler = new TestScheduler(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(400), TimeUnit.MILLISECONDS);
+          CronEventSchedulerVertical vertical = new CronEventSchedulerVertical(scheduler, CronClock.of(scheduler));
+          rule.vertx().deployVerticle(vertical, options, context.asyncAssertSuccess(second -> {
+            rule.vertx().setTimer(500, timerHandler -> {
+              MultiMap headers = firstHeaders.get();
+              context.assertNotNull(headers);
+              context.assertTrue(Integer.parseInt(headers.get("cron_misfires")) >= 1);
+              async.complete();
+            });
+          }));
+        }));
+      }));
+    }));
+  }
+
+  private DeploymentOptions options(String type) {
+
+    JsonObject config = new JsonObject()
+      .put("address_base", "store")
+      .put("store", new JsonObject().put("type", type).put("path", directory.resolve("schedules").toString()));
+    return new DeploymentOptions().setConfig(config);
+  }
+
+  private JsonObject event(String address) {
+
+    return new JsonObject()
+      .put("cron_expression", "*/1 * * * * ?")
+      .put("address", address)
+      .put("action", "publish");
+  }
+}
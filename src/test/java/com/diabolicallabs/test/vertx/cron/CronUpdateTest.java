@@ -0,0 +1,131 @@
+package com.diabolicallabs.test.vertx.cron;
+
+import com.diabolicallabs.vertx.cron.CronEventSchedulerVertical;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(io.vertx.ext.unit.junit.VertxUnitRunner.class)
+public class CronUpdateTest {
+
+  private static final String SECONDLY = "* * * * * ?";
+  private static final String YEARLY = "0 0 0 1 1 ?";
+
+  @Rule
+  public RunTestOnContext rule = new RunTestOnContext();
+
+  /**
+   * Two instances share the registry, so an update is often handled by the instance that did not
+   * arm the schedule.
+   */
+  @Before
+  public void before(TestContext context) {
+
+    JsonObject config = new JsonObject().put("address_base", "update");
+    rule.vertx().deployVerticle(CronEventSchedulerVertical.class.getName(), new DeploymentOptions().setConfig(config).setInstances(2), context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testUpdateMessage(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    String id = UUID.randomUUID().toString();
+    AtomicBoolean updated = new AtomicBoolean();
+    AtomicInteger after = new AtomicInteger();
+
+    rule.vertx().eventBus().consumer(address, message -> {
+      if (updated.get()) {
+        // No fire of the schedule as it was comes after the update
+        context.assertEquals("after", message.body());
+        if (after.incrementAndGet() == 2) {
+          rule.vertx().eventBus().<JsonObject>request("update.stats", id, context.asyncAssertSuccess(stats -> {
+            context.assertTrue(stats.body().getLong("fires") >= 3);
+            async.complete();
+          }));
+        }
+        return;
+      }
+      if (!"before".equals(message.body())) return;
+
+      JsonObject changes = new JsonObject().put("cron_id", id).put("message", "after");
+      rule.vertx().eventBus().request("update.update", changes, context.asyncAssertSuccess(reply -> {
+        context.assertEquals(id, reply.body());
+        updated.set(true);
+      }));
+    });
+
+    JsonObject event = new JsonObject()
+      .put("cron_id", id)
+      .put("cron_expression", SECONDLY)
+      .put("address", address)
+      .put("message", "before")
+      .put("action", "publish");
+    rule.vertx().eventBus().request("update.schedule", event, context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testUpdateExpression(TestContext context) {
+
+    Async async = context.async();
+
+    String address = UUID.randomUUID().toString();
+    String id = UUID.randomUUID().toString();
+    rule.vertx().eventBus().consumer(address, message -> {
+      context.assertEquals("kept", message.body());
+      async.complete();
+    });
+
+    JsonObject event = new JsonObject()
+      .put("cron_id", id)
+      .put("cron_expression", YEARLY)
+      .put("address", address)
+      .put("message", "kept")
+      .put("action", "publish")
+      .put("group", "reloaded");
+
+    // The message and action are kept, the expression is swapped, and the group is dropped
+    JsonObject changes = new JsonObject().put("cron_id", id).put("cron_expression", SECONDLY).putNull("group");
+    rule.vertx().eventBus().request("update.schedule", event, context.asyncAssertSuccess(scheduled ->
+      rule.vertx().eventBus().request("update.update", changes, context.asyncAssertSuccess(updated ->
+        rule.vertx().eventBus().<JsonObject>request("update.get", id, context.asyncAssertSuccess(reply -> {
+          context.assertEquals(SECONDLY, reply.body().getString("cron_expression"));
+          context.assertFalse(reply.body().containsKey("group"));
+
+          rule.vertx().eventBus().<JsonObject>request("update.list", new JsonObject().put("cron_expression", YEARLY), context.asyncAssertSuccess(listed ->
+            context.assertTrue(listed.body().getJsonArray("schedules").isEmpty())));
+        }))))));
+  }
+
+  @Test
+  public void testInvalidUpdate(TestContext context) {
+
+    Async async = context.async();
+
+    String id = UUID.randomUUID().toString();
+    JsonObject event = new JsonObject().put("cron_id", id).put("cron_expression", YEARLY).put("address", "update.target");
+
+    rule.vertx().eventBus().request("update.update", new JsonObject().put("cron_id", "update-missing").put("message", "x"), context.asyncAssertFailure());
+    rule.vertx().eventBus().request("update.update", new JsonObject().put("message", "x"), context.asyncAssertFailure());
+
+    // A rejected update leaves the schedule as it was
+    rule.vertx().eventBus().request("update.schedule", event, context.asyncAssertSuccess(scheduled ->
+      rule.vertx().eventBus().request("update.update", new JsonObject().put("cron_id", id).put("cron_expression", "not cron"), context.asyncAssertFailure(failed ->
+        rule.vertx().eventBus().<JsonObject>request("update.get", id, context.asyncAssertSuccess(reply -> {
+          context.assertEquals(YEARLY, reply.body().getString("cron_expression"));
+          async.complete();
+        }))))));
+  }
+
+}